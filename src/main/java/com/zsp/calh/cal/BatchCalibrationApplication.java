@@ -0,0 +1,334 @@
+package com.zsp.calh.cal;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+import com.zsp.calh.cal.service.CalculationEngine;
+import com.zsp.calh.cal.service.CalculationRequest;
+import com.zsp.calh.cal.service.GlobalFitAccumulator;
+import com.zsp.calh.cal.service.ProgressMonitor;
+import com.zsp.calh.cal.service.ResultBuffer;
+import com.zsp.calh.cal.service.SolverMode;
+import com.zsp.calh.cal.utils.DatabaseManager;
+import com.zsp.calh.cal.utils.TemperatureRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 无界面批量标定入口：对 temperature_data 中的每一行（日期、线别、设备）分别计算
+ * 4 个探头 × 2 个方位的 Top-K (F, G)，结果写入 calibration_result 表。
+ * 逐行计算时每块数据只遍历一次，每行的 8 个组合连续计算（CalculationEngine.calculateMatrix）。
+ * 与界面使用同一套 CalculationEngine 计算和排序逻辑，适合夜间定时任务。
+ * <p>
+ * 用法：java -m com.zsp.calh.cal/com.zsp.calh.cal.BatchCalibrationApplication
+ * --plate-temp=35 [--axis=3] [--g=5] [--db=temperature_data.db] [--chunk=2000] [--solver=analytic|grid|adaptive]
+ * [--f-step=0.1] [--g-step=1] [--fit=row|global] [--plate-channel=inner-left|inner-right|outer-left|outer-right]
+ * <p>
+ * 指定 --plate-channel 时每行取该板温通道的值作为 E，可以不给 --plate-temp；plate_temp 列写入该行实际使用的板温。
+ * <p>
+ * --fit=global 时每个设备（线别 + 设备名）的所有行共用一组 (F, G)：逐块累加各设备的差值和，
+ * 全表读完后为每个设备、探头、方位写入 Top-K，date 列为空。
+ * <p>
+ * 并行度通过 -Dcal.parallelism 配置，默认使用全部 CPU 核
+ */
+public class BatchCalibrationApplication {
+    private static final String RESULT_TABLE_NAME = "calibration_result";
+    private static final int DEFAULT_CHUNK_SIZE = 2000;
+    private static final String INSERT_SQL = "INSERT OR REPLACE INTO " + RESULT_TABLE_NAME
+            + " (line_number, device_name, date, probe, side, rank, f, g, std_dev, diff3, diff4, diff5, diff6, plate_temp, remark, run_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DatabaseManager dbManager;
+    private final CalculationEngine engine;
+    private final List<CalculationRequest> requests;
+    private final int chunkSize;
+    // 整体拟合时，每组计算参数对应一份 线别+设备 -> 累加器；逐行计算时为 null
+    private final List<Map<String, GlobalFitAccumulator>> globalSums;
+    private final String runTime = LocalDateTime.now().toString();
+
+    private long startNanos;
+    private int processedRows;
+    private int savedResults;
+
+    public BatchCalibrationApplication(DatabaseManager dbManager, CalculationEngine engine,
+                                       List<CalculationRequest> requests, int chunkSize) {
+        this(dbManager, engine, requests, chunkSize, false);
+    }
+
+    public BatchCalibrationApplication(DatabaseManager dbManager, CalculationEngine engine,
+                                       List<CalculationRequest> requests, int chunkSize, boolean globalFit) {
+        this.dbManager = dbManager;
+        this.engine = engine;
+        this.requests = requests;
+        this.chunkSize = chunkSize;
+        if (globalFit) {
+            globalSums = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) globalSums.add(new LinkedHashMap<>());
+        } else {
+            globalSums = null;
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseArgs(args);
+
+        // 参数校验：板温或板温通道必填，非线性筛选 G 和轴位优选至少选择一项
+        String plateTempStr = options.get("plate-temp");
+        String plateChannelStr = options.get("plate-channel");
+        String gStr = options.get("g");
+        String axisStr = options.get("axis");
+        if ((plateTempStr == null && plateChannelStr == null) || (gStr == null && axisStr == null)) {
+            System.err.println("用法: --plate-temp=<板温E> [--axis=<3-6>] [--g=<-20~20>] [--db=<数据库文件>] [--chunk=<每块行数>] [--solver=analytic|grid|adaptive] [--f-step=<F步长>] [--g-step=<G步长>] [--fit=row|global] [--plate-channel=inner-left|inner-right|outer-left|outer-right]");
+            System.err.println("【非线性筛选】(--g) 和【轴位优选】(--axis) 必须至少选择一项！");
+            System.exit(1);
+            return;
+        }
+
+        double plateTemp;
+        Channel plateChannel;
+        Double selectedG;
+        int targetAxis;
+        int chunkSize;
+        int fStepsPerUnit;
+        int gStepsPerUnit;
+        SolverMode solverMode;
+        try {
+            plateTemp = plateTempStr == null ? 0.0 : Double.parseDouble(plateTempStr);
+            plateChannel = plateChannelStr == null ? null : parsePlateChannel(plateChannelStr);
+            selectedG = gStr == null ? null : Double.valueOf(gStr);
+            targetAxis = axisStr == null ? 0 : Integer.parseInt(axisStr);
+            chunkSize = Integer.parseInt(options.getOrDefault("chunk", String.valueOf(DEFAULT_CHUNK_SIZE)));
+            fStepsPerUnit = options.containsKey("f-step")
+                    ? CalculationRequest.stepsPerUnit(options.get("f-step")) : CalculationRequest.DEFAULT_F_STEPS_PER_UNIT;
+            gStepsPerUnit = options.containsKey("g-step")
+                    ? CalculationRequest.stepsPerUnit(options.get("g-step")) : CalculationRequest.DEFAULT_G_STEPS_PER_UNIT;
+            solverMode = SolverMode.fromOption(options.get("solver"));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException 也是 IllegalArgumentException
+            System.err.println("参数无效: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (targetAxis != 0 && (targetAxis < ProbeChannel.FIRST_AXLE || targetAxis >= ProbeChannel.FIRST_AXLE + ProbeChannel.AXLE_COUNT)) {
+            System.err.println("轴位必须在3-6之间: " + targetAxis);
+            System.exit(1);
+            return;
+        }
+        boolean globalFit = "global".equals(options.get("fit"));
+
+        // 每个探头/方位一组计算参数
+        List<CalculationRequest> requests = new ArrayList<>();
+        for (ProbeChannel channel : ProbeChannel.values()) {
+            requests.add(new CalculationRequest(channel, plateTemp, plateChannel, selectedG, targetAxis, solverMode,
+                    fStepsPerUnit, gStepsPerUnit));
+        }
+
+        DatabaseManager dbManager = DatabaseManager.initializeInstance(options.getOrDefault("db", "temperature_data.db"));
+        CalculationEngine engine = CalculationEngine.getInstance();
+        // 批量标定每行只算一次，结果写入结果表后不会再从缓存读取，不写 calc_cache
+        engine.setCache(null);
+        try {
+            new BatchCalibrationApplication(dbManager, engine, requests, Math.max(1, chunkSize), globalFit).run();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.err.println("批量标定失败: " + e.getMessage());
+            System.exit(2);
+        } finally {
+            engine.shutdown();
+            dbManager.disconnect();
+        }
+    }
+
+    /**
+     * 分块读取全表，逐块并行计算并写入结果表
+     */
+    public void run() throws SQLException {
+        createResultTableIfNotExists();
+        System.out.println("开始批量标定：并行度 " + engine.getParallelism() + "，每块 " + chunkSize + " 行，"
+                + requests.size() + " 个探头/方位组合");
+
+        startNanos = System.nanoTime();
+        int total = new TemperatureRepository(dbManager).forEachChunk(chunkSize, this::processChunk);
+        if (globalSums != null) {
+            saveGlobalResults();
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("批量标定完成：共 %d 行，写入 %d 条结果，耗时 %.1f 秒，%.1f 行/秒%n",
+                total, savedResults, seconds, total / Math.max(seconds, 1e-9));
+    }
+
+    private void processChunk(List<TemperatureData> chunk) throws SQLException {
+        if (globalSums != null) {
+            // 整体拟合只累加，全表读完后再求解和写入
+            for (int r = 0; r < requests.size(); r++) {
+                CalculationEngine.mergeGlobal(globalSums.get(r), engine.accumulateGlobal(chunk, requests.get(r), ProgressMonitor.NONE));
+            }
+        } else {
+            // 每行只读取一次，一并算完全部组合，结果放在列式缓冲区中，再在一个事务内写入
+            ResultBuffer buffer = new ResultBuffer(chunk, requests);
+            engine.calculateMatrix(chunk, requests, ProgressMonitor.NONE, buffer);
+            saveResults(buffer);
+        }
+
+        processedRows += chunk.size();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("已处理 %d 行，%.1f 行/秒%n", processedRows, processedRows / Math.max(seconds, 1e-9));
+    }
+
+    /**
+     * 创建结果表（如果它还不存在）。
+     * 同一行、探头、方位、模式和排名只保留最新一次的结果
+     */
+    private void createResultTableIfNotExists() throws SQLException {
+        String createTableSQL = "CREATE TABLE IF NOT EXISTS " + RESULT_TABLE_NAME + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "line_number TEXT, device_name TEXT, date TEXT, "
+                + "probe INTEGER, side TEXT, rank INTEGER, "
+                + "f REAL, g REAL, std_dev REAL, diff3 REAL, diff4 REAL, diff5 REAL, diff6 REAL, "
+                + "plate_temp REAL, remark TEXT, run_time TEXT, "
+                + "UNIQUE(line_number, date, device_name, probe, side, remark, rank)"
+                + ")";
+
+        try (DatabaseManager.WriteConnection writer = dbManager.acquireWriteConnection();
+             Statement stmt = writer.createStatement()) {
+            stmt.execute(createTableSQL);
+        }
+    }
+
+    // 直接从结果缓冲区读取各条结果，不创建 ResultModel
+    private void saveResults(ResultBuffer buffer) throws SQLException {
+        try (DatabaseManager.WriteConnection writer = dbManager.acquireWriteConnection()) {
+            Connection conn = writer.getConnection();
+            boolean originalAutoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                    double[] diffs = new double[ProbeChannel.AXLE_COUNT];
+                    TemperatureData row = null;
+                    String date = null;
+                    for (int i = 0; i < buffer.size(); i++) {
+                        // 同一行的结果连续存放，每行只格式化一次日期
+                        if (row != buffer.getRows().get(buffer.getRowIndex(i))) {
+                            row = buffer.getRows().get(buffer.getRowIndex(i));
+                            date = TemperatureRepository.formatDate(row.getDate());
+                        }
+                        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                            diffs[k] = buffer.getDiff(i, ProbeChannel.FIRST_AXLE + k);
+                        }
+                        addResult(pstmt, row.getLineNumber(), row.getDeviceName(), date, requests.get(0).getPlateTemp(row),
+                                buffer.getChannel(i), buffer.getRank(i), buffer.getF(i), buffer.getG(i), buffer.getStdDev(i),
+                                diffs, buffer.getRemark(i));
+                    }
+                    int[] result = pstmt.executeBatch();
+                    conn.commit();
+                    savedResults += result.length;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } finally {
+                conn.setAutoCommit(originalAutoCommit);
+            }
+        }
+    }
+
+    // 整体拟合：为每个设备、探头、方位求解并在一个事务内写入，date 列为空
+    private void saveGlobalResults() throws SQLException {
+        try (DatabaseManager.WriteConnection writer = dbManager.acquireWriteConnection()) {
+            Connection conn = writer.getConnection();
+            boolean originalAutoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                    for (int r = 0; r < requests.size(); r++) {
+                        CalculationRequest request = requests.get(r);
+                        // 按行取板温时各行的 E 不同，plate_temp 列为空
+                        double plateTemp = request.isRowPlateTemp() ? Double.NaN : request.getPlateTemp();
+                        for (GlobalFitAccumulator accumulator : globalSums.get(r).values()) {
+                            for (ResultModel result : engine.fitGlobal(Collections.singletonList(accumulator), request)) {
+                                double[] diffs = {result.getDiff3(), result.getDiff4(), result.getDiff5(), result.getDiff6()};
+                                addResult(pstmt, accumulator.getLineNumber(), accumulator.getDeviceName(), "", plateTemp,
+                                        result.getChannel(), result.getRank(), result.getF(), result.getG(), result.getStdDev(),
+                                        diffs, result.getRemark());
+                            }
+                        }
+                    }
+                    int[] result = pstmt.executeBatch();
+                    conn.commit();
+                    savedResults += result.length;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } finally {
+                conn.setAutoCommit(originalAutoCommit);
+            }
+        }
+    }
+
+    // diffs 为轴3-6的差值；各组计算参数的板温设置相同，plateTemp 为 NaN 时写入 NULL
+    private void addResult(PreparedStatement pstmt, String lineNumber, String deviceName, String date, double plateTemp,
+                           ProbeChannel channel, int rank, double f, double g, double stdDev, double[] diffs,
+                           String remark) throws SQLException {
+        int paramIndex = 1;
+        pstmt.setString(paramIndex++, lineNumber);
+        pstmt.setString(paramIndex++, deviceName);
+        pstmt.setString(paramIndex++, date);
+        pstmt.setInt(paramIndex++, channel.getProbeIndex());
+        pstmt.setString(paramIndex++, channel.getSideLabel());
+        pstmt.setInt(paramIndex++, rank);
+        pstmt.setDouble(paramIndex++, f);
+        pstmt.setDouble(paramIndex++, g);
+        pstmt.setDouble(paramIndex++, stdDev);
+        for (double diff : diffs) {
+            pstmt.setDouble(paramIndex++, diff);
+        }
+        if (Double.isNaN(plateTemp)) {
+            pstmt.setNull(paramIndex++, Types.REAL);
+        } else {
+            pstmt.setDouble(paramIndex++, plateTemp);
+        }
+        pstmt.setString(paramIndex++, remark);
+        pstmt.setString(paramIndex++, runTime);
+        pstmt.addBatch();
+    }
+
+    // 解析 --plate-channel 的取值，如 inner-left
+    private static Channel parsePlateChannel(String value) {
+        switch (value) {
+            case "inner-left": return Channel.PLATE_INNER_LEFT;
+            case "inner-right": return Channel.PLATE_INNER_RIGHT;
+            case "outer-left": return Channel.PLATE_OUTER_LEFT;
+            case "outer-right": return Channel.PLATE_OUTER_RIGHT;
+            default: throw new IllegalArgumentException("未知的板温通道: " + value);
+        }
+    }
+
+    // 解析 --key=value 形式的参数
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq > 2) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1).trim());
+            } else {
+                options.put(arg.substring(2), "");
+            }
+        }
+        return options;
+    }
+}
@@ -1,5 +1,7 @@
 package com.zsp.calh.cal;
 
+import com.zsp.calh.cal.controller.BackgroundTaskRunner;
+import com.zsp.calh.cal.service.CalculationEngine;
 import com.zsp.calh.cal.utils.DatabaseManager;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -32,7 +34,9 @@ public class HelloApplication extends Application {
 
     @Override
     public void stop() throws Exception {
-        // 应用关闭时断开数据库
+        // 应用关闭时停止后台任务、释放计算线程池并断开数据库
+        BackgroundTaskRunner.shutdown();
+        CalculationEngine.shutdownIfStarted();
         try {
             DatabaseManager.getInstance().disconnect();
         } catch (Exception e) {
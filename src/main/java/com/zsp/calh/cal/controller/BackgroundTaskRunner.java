@@ -0,0 +1,179 @@
+package com.zsp.calh.cal.controller;
+
+import com.zsp.calh.cal.service.ProgressMonitor;
+import javafx.concurrent.Task;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 在后台线程执行导入、查询、计算，界面线程只负责显示进度和结果。
+ * 运行期间状态栏绑定任务的 message，进度条绑定任务的 progress（总量未知时为滚动条），
+ * 取消按钮只在任务运行时显示。同一个界面同时只运行一个任务
+ */
+public class BackgroundTaskRunner {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    // 所有界面共用的后台线程，守护线程不会阻止程序退出
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "cal-background-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 在后台线程执行的工作，通过 monitor 报告进度并检查是否已取消
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(ProgressMonitor monitor) throws Exception;
+    }
+
+    private final Label statusLabel;
+    private final ProgressBar progressBar;
+    private final Button cancelButton;
+    private MonitoredTask<?> currentTask;
+
+    public BackgroundTaskRunner(Label statusLabel, ProgressBar progressBar, Button cancelButton) {
+        this.statusLabel = statusLabel;
+        this.progressBar = progressBar;
+        this.cancelButton = cancelButton;
+        setIdle();
+    }
+
+    /**
+     * 启动后台任务，必须在界面线程调用。回调都在界面线程执行
+     * @param startMessage 任务开始时状态栏显示的文字
+     * @param work         后台执行的工作
+     * @param onSucceeded  成功后处理结果
+     * @param onFailed     出错后处理异常（取消不算出错，只在状态栏提示）
+     * @return 已有任务在运行时返回 false，不启动新任务
+     */
+    public <T> boolean run(String startMessage, Work<T> work, Consumer<T> onSucceeded, Consumer<Throwable> onFailed) {
+        return run(startMessage, work, onSucceeded, onFailed, null);
+    }
+
+    /**
+     * 同上，onFinished 在任务结束时（成功、失败或取消）最先执行，用于收尾，例如停止逐帧刷新
+     */
+    public <T> boolean run(String startMessage, Work<T> work, Consumer<T> onSucceeded, Consumer<Throwable> onFailed,
+                           Runnable onFinished) {
+        if (isRunning()) {
+            return false;
+        }
+
+        MonitoredTask<T> task = new MonitoredTask<>(work, startMessage);
+        currentTask = task;
+        statusLabel.textProperty().bind(task.messageProperty());
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressBar.setVisible(true);
+        cancelButton.setVisible(true);
+        cancelButton.setDisable(false);
+
+        task.setOnSucceeded(e -> {
+            String lastMessage = finish(task, onFinished);
+            statusLabel.setText(lastMessage);
+            onSucceeded.accept(task.getValue());
+        });
+        task.setOnCancelled(e -> {
+            finish(task, onFinished);
+            statusLabel.setText("已取消");
+        });
+        task.setOnFailed(e -> {
+            finish(task, onFinished);
+            Throwable error = task.getException();
+            // 工作内部检测到取消时抛出 CancellationException，按取消处理
+            if (error instanceof CancellationException) {
+                statusLabel.setText(error.getMessage() != null ? error.getMessage() : "已取消");
+                return;
+            }
+            onFailed.accept(error);
+        });
+
+        EXECUTOR.execute(task);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return currentTask != null && !currentTask.isDone();
+    }
+
+    /**
+     * 请求取消当前任务，并中断后台线程中的阻塞等待
+     */
+    public void cancel() {
+        if (isRunning()) {
+            cancelButton.setDisable(true);
+            currentTask.cancel(true);
+        }
+    }
+
+    // 解除绑定，返回任务最后的进度说明
+    private String finish(MonitoredTask<?> task, Runnable onFinished) {
+        if (onFinished != null) {
+            onFinished.run();
+        }
+        String lastMessage = task.getMessage();
+        if (currentTask == task) {
+            currentTask = null;
+        }
+        setIdle();
+        return lastMessage;
+    }
+
+    private void setIdle() {
+        statusLabel.textProperty().unbind();
+        progressBar.progressProperty().unbind();
+        progressBar.setProgress(0);
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+    }
+
+    /**
+     * 程序退出时停止接受新任务
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    /**
+     * 把 ProgressMonitor 的回调转给 Task 的 updateProgress/updateMessage，
+     * 这两个方法会合并更新，后台线程频繁调用也不会堆积界面事件
+     */
+    private static class MonitoredTask<T> extends Task<T> implements ProgressMonitor {
+        private final Work<T> work;
+
+        MonitoredTask(Work<T> work, String startMessage) {
+            this.work = work;
+            updateMessage(startMessage);
+        }
+
+        @Override
+        protected T call() throws Exception {
+            return work.run(this);
+        }
+
+        @Override
+        public void update(long workDone, long totalWork, String message) {
+            if (totalWork > 0) {
+                updateProgress(workDone, totalWork);
+            } else {
+                updateProgress(-1, 1);
+            }
+            if (message != null) {
+                updateMessage(message);
+            }
+        }
+
+        @Override
+        protected void running() {
+            // 开始时显示为进度未知，直到第一次报告进度
+            updateProgress(-1, 1);
+        }
+    }
+}
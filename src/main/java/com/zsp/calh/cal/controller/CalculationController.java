@@ -1,12 +1,20 @@
 package com.zsp.calh.cal.controller;
 
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
 import com.zsp.calh.cal.model.TemperatureData;
+import com.zsp.calh.cal.service.CalculationEngine;
+import com.zsp.calh.cal.service.CalculationRequest;
+import com.zsp.calh.cal.service.CalculationSession;
+import com.zsp.calh.cal.service.ResultBuffer;
+import com.zsp.calh.cal.service.ResultColumns;
+import com.zsp.calh.cal.service.SolverMode;
+import com.zsp.calh.cal.service.ProgressMonitor;
 import com.zsp.calh.cal.utils.DatabaseManager;
-import javafx.beans.property.SimpleDoubleProperty;
+import com.zsp.calh.cal.utils.TemperatureRepository;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -16,16 +24,13 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.MonthDay;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
 
 public class CalculationController {
     // --- 筛选控件 ---
@@ -36,36 +41,69 @@ public class CalculationController {
     @FXML private ComboBox<String> sideComboBox;
 
     // --- 结果表格控件 ---
-    @FXML private TableView<ResultModel> resultTableView;
-    @FXML private TableColumn<ResultModel, String> colRowInfo;
-    @FXML private TableColumn<ResultModel, Integer> colRank;
-    @FXML private TableColumn<ResultModel, Double> colF;
-    @FXML private TableColumn<ResultModel, Double> colG;
-    @FXML private TableColumn<ResultModel, String> colStdDev;
-    @FXML private TableColumn<ResultModel, String> colDiff3;
-    @FXML private TableColumn<ResultModel, String> colDiff4;
-    @FXML private TableColumn<ResultModel, String> colDiff5;
-    @FXML private TableColumn<ResultModel, String> colDiff6;
-    @FXML private TableColumn<ResultModel, String> colRemark;
+    @FXML private TableView<Integer> resultTableView;
+    @FXML private TableColumn<Integer, String> colRowInfo;
+    @FXML private TableColumn<Integer, String> colChannel;
+    @FXML private TableColumn<Integer, Integer> colRank;
+    @FXML private TableColumn<Integer, Double> colF;
+    @FXML private TableColumn<Integer, Double> colG;
+    @FXML private TableColumn<Integer, Double> colStdDev;
+    @FXML private TableColumn<Integer, Double> colDiff3;
+    @FXML private TableColumn<Integer, Double> colDiff4;
+    @FXML private TableColumn<Integer, Double> colDiff5;
+    @FXML private TableColumn<Integer, Double> colDiff6;
+    @FXML private TableColumn<Integer, String> colRemark;
 
     // --- 参数输入控件 ---
     @FXML private TextField plateTempField;
-    @FXML private TextField currentPlateTempField;
+    @FXML private ComboBox<String> plateSourceComboBox;
     @FXML private ComboBox<Integer> nonlinearFilterComboBox;
     @FXML private ComboBox<String> axialPreferenceComboBox;
+    @FXML private ComboBox<String> solverModeComboBox;
+    @FXML private ComboBox<String> fStepComboBox;
+    @FXML private ComboBox<String> gStepComboBox;
+    @FXML private ComboBox<String> fitScopeComboBox;
+
+    // --- 状态栏 ---
+    @FXML private Label statusLabel;
+    @FXML private ProgressBar progressBar;
+    @FXML private Button cancelButton;
 
     private static final String TABLE_NAME = "temperature_data";
+    // 探头、方位选“全部”时一次计算所有组合（矩阵模式），结果按行分组
+    private static final String PROBE_ALL = "全部探头";
+    private static final String SIDE_ALL = "全部";
+    // 板温来源：手动输入时所有行共用输入的 E，否则每行取所选板温通道的值
+    private static final String PLATE_MANUAL = "手动输入";
+    private static final String[] PLATE_CHANNEL_LABELS = {"板温内左", "板温内右", "板温外左", "板温外右"};
+    // 拟合范围：每行各自求 Top-K，或每个设备的所有行共用一组 (F, G)
+    private static final String FIT_PER_ROW = "逐行";
+    private static final String FIT_GLOBAL = "按设备整体";
+    // 查询时每读取多少行报告一次进度
+    private static final int QUERY_PROGRESS_INTERVAL = 1000;
     private boolean isUpdating = false;
+    private BackgroundTaskRunner taskRunner;
+
+    // 最近一次查询的数据行及其查询条件和数据版本，两者都不变时再次计算不重新查询
+    private List<TemperatureData> lastRows;
+    private String lastQueryKey;
+    private long lastDataVersion;
+    // 基于 lastRows 的计算会话：逐行计算时随首次计算建立，
+    // 之后只改板温、轴位优选、求解方式或 F 精度时直接用会话中的中间量重新排序
+    private CalculationSession session;
+    // 结果表格的各列从这里按条目下标读取，与表格当前的 items 一起在界面线程中设置
+    private ResultColumns shownResults = ResultColumns.of(new ArrayList<>());
 
     @FXML
     public void initialize() {
+        taskRunner = new BackgroundTaskRunner(statusLabel, progressBar, cancelButton);
         setupComboBoxListeners();
         refreshComboBoxOptions(null);
         initializeTableColumns();
 
         // 默认值
-        if (probeComboBox.getItems().isEmpty()) probeComboBox.setItems(FXCollections.observableArrayList("地面探头1", "地面探头2", "地面探头3", "地面探头4"));
-        if (sideComboBox.getItems().isEmpty()) sideComboBox.setItems(FXCollections.observableArrayList("左", "右"));
+        if (probeComboBox.getItems().isEmpty()) probeComboBox.setItems(FXCollections.observableArrayList("地面探头1", "地面探头2", "地面探头3", "地面探头4", PROBE_ALL));
+        if (sideComboBox.getItems().isEmpty()) sideComboBox.setItems(FXCollections.observableArrayList("左", "右", SIDE_ALL));
         probeComboBox.getSelectionModel().select("地面探头1");
         sideComboBox.getSelectionModel().select("左");
 
@@ -85,20 +123,55 @@ public class CalculationController {
         axialOptions.add("6");
         axialPreferenceComboBox.setItems(FXCollections.observableArrayList(axialOptions));
         axialPreferenceComboBox.getSelectionModel().selectFirst();
+
+        // 初始化求解方式
+        List<String> solverOptions = new ArrayList<>();
+        for (SolverMode mode : SolverMode.values()) solverOptions.add(mode.getLabel());
+        solverModeComboBox.setItems(FXCollections.observableArrayList(solverOptions));
+        solverModeComboBox.getSelectionModel().select(SolverMode.ANALYTIC.getLabel());
+
+        // 初始化网格精度
+        fStepComboBox.setItems(FXCollections.observableArrayList("0.1", "0.01"));
+        fStepComboBox.getSelectionModel().selectFirst();
+        gStepComboBox.setItems(FXCollections.observableArrayList("1", "0.5", "0.1"));
+        gStepComboBox.getSelectionModel().selectFirst();
+
+        // 初始化板温来源，按行取板温时不需要输入板温
+        List<String> plateOptions = new ArrayList<>();
+        plateOptions.add(PLATE_MANUAL);
+        plateOptions.addAll(Arrays.asList(PLATE_CHANNEL_LABELS));
+        plateSourceComboBox.setItems(FXCollections.observableArrayList(plateOptions));
+        plateSourceComboBox.getSelectionModel().selectFirst();
+        plateTempField.disableProperty().bind(plateSourceComboBox.valueProperty().isNotEqualTo(PLATE_MANUAL));
+
+        // 初始化拟合范围
+        fitScopeComboBox.setItems(FXCollections.observableArrayList(FIT_PER_ROW, FIT_GLOBAL));
+        fitScopeComboBox.getSelectionModel().selectFirst();
     }
 
     private void initializeTableColumns() {
-        colRowInfo.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getRowInfo()));
-        colRank.setCellValueFactory(cell -> new SimpleIntegerProperty(cell.getValue().getRank()).asObject());
-        colF.setCellValueFactory(cell -> new SimpleDoubleProperty(cell.getValue().getF()).asObject());
-        colG.setCellValueFactory(cell -> new SimpleDoubleProperty(cell.getValue().getG()).asObject());
-
-        colStdDev.setCellValueFactory(cell -> new SimpleStringProperty(String.format("%.4f", cell.getValue().getStdDev())));
-        colDiff3.setCellValueFactory(cell -> new SimpleStringProperty(String.format("%.3f", cell.getValue().getDiff3())));
-        colDiff4.setCellValueFactory(cell -> new SimpleStringProperty(String.format("%.3f", cell.getValue().getDiff4())));
-        colDiff5.setCellValueFactory(cell -> new SimpleStringProperty(String.format("%.3f", cell.getValue().getDiff5())));
-        colDiff6.setCellValueFactory(cell -> new SimpleStringProperty(String.format("%.3f", cell.getValue().getDiff6())));
-        colRemark.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getRemark()));
+        // 结果缓冲区视图不能直接修改，排序时只重排其下标
+        resultTableView.setSortPolicy(table -> {
+            if (table.getItems() instanceof ResultBufferList) {
+                table.getItems().sort(table.getComparator());
+                return true;
+            }
+            return TableView.DEFAULT_SORT_POLICY.call(table);
+        });
+        // 表格的行是条目下标，每列直接从 shownResults 读取，不为条目创建 ResultModel；
+        // 数值列保持 Double 以便按数值排序，显示文本由单元格格式化
+        ColumnBindings.bindString(colRowInfo, index -> shownResults.getRowInfo(index));
+        ColumnBindings.bindString(colChannel, index -> shownResults.getChannel(index).getLabel());
+        colRank.setCellValueFactory(cell -> new SimpleIntegerProperty(shownResults.getRank(cell.getValue())).asObject());
+        ColumnBindings.bindDouble(colF, index -> shownResults.getF(index));
+        ColumnBindings.bindDouble(colG, index -> shownResults.getG(index));
+
+        ColumnBindings.bindDouble(colStdDev, index -> shownResults.getStdDev(index), "%.4f");
+        ColumnBindings.bindDouble(colDiff3, index -> shownResults.getDiff(index, 3), "%.3f");
+        ColumnBindings.bindDouble(colDiff4, index -> shownResults.getDiff(index, 4), "%.3f");
+        ColumnBindings.bindDouble(colDiff5, index -> shownResults.getDiff(index, 5), "%.3f");
+        ColumnBindings.bindDouble(colDiff6, index -> shownResults.getDiff(index, 6), "%.3f");
+        ColumnBindings.bindString(colRemark, index -> shownResults.getRemark(index));
     }
 
     @FXML
@@ -111,23 +184,35 @@ public class CalculationController {
         File selectedFile = fileChooser.showOpenDialog(stage);
 
         if (selectedFile != null) {
-            try {
-                LoadController loadController = new LoadController();
-                List<TemperatureData> data = loadController.readExcelToTemperatureData(selectedFile.getAbsolutePath());
-                if (!data.isEmpty()) {
-                    int insertedCount = loadController.saveTemperatureDataToSQLite(data, TABLE_NAME);
-                    int ignoredCount = data.size() - insertedCount;
-                    refreshComboBoxOptions(null);
-                    String msg = String.format("读取: %d 条, 入库: %d 条, 忽略重复: %d 条", data.size(), insertedCount, ignoredCount);
-                    showAlert(Alert.AlertType.INFORMATION, "导入成功", msg);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                showAlert(Alert.AlertType.ERROR, "错误", "导入失败: " + e.getMessage());
-            }
+            String filePath = selectedFile.getAbsolutePath();
+            boolean started = taskRunner.run("正在导入: " + selectedFile.getName() + " ...",
+                    monitor -> new LoadController().importExcelToSQLite(
+                            filePath, TABLE_NAME, LoadController.DEFAULT_IMPORT_CHUNK_SIZE, monitor),
+                    result -> {
+                        if (result.getReadCount() > 0) {
+                            refreshComboBoxOptions(null);
+                            String msg = String.format("读取: %d 条, 入库: %d 条, 忽略重复: %d 条", result.getReadCount(), result.getInsertedCount(), result.getIgnoredCount());
+                            statusLabel.setText("导入完成：" + msg);
+                            showAlert(Alert.AlertType.INFORMATION, "导入成功", msg);
+                        }
+                    },
+                    e -> {
+                        e.printStackTrace();
+                        statusLabel.setText("导入出错: " + e.getMessage());
+                        showAlert(Alert.AlertType.ERROR, "错误", "导入失败: " + e.getMessage());
+                    });
+            if (!started) showBusyAlert();
         }
     }
 
+    /**
+     * 取消正在运行的导入或计算
+     */
+    @FXML
+    public void cancelTask() {
+        taskRunner.cancel();
+    }
+
     @FXML
     public void performCalculation() {
         // 1. 基础校验
@@ -153,221 +238,164 @@ public class CalculationController {
             return;
         }
 
-        // 3. 获取板温 E
-        double E;
-        try {
-            if (plateTempField.getText() == null || plateTempField.getText().trim().isEmpty()) {
-                showAlert(Alert.AlertType.WARNING, "提示", "请输入板温(E)。");
+        // 3. 获取板温 E：手动输入，或按行取所选的板温通道
+        Channel plateChannel = plateChannelOf(plateSourceComboBox.getValue());
+        double E = 0.0;
+        if (plateChannel == null) {
+            try {
+                if (plateTempField.getText() == null || plateTempField.getText().trim().isEmpty()) {
+                    showAlert(Alert.AlertType.WARNING, "提示", "请输入板温(E)。");
+                    return;
+                }
+                E = Double.parseDouble(plateTempField.getText().trim());
+            } catch (NumberFormatException e) {
+                showAlert(Alert.AlertType.ERROR, "错误", "板温必须是有效数字。");
                 return;
             }
-            E = Double.parseDouble(plateTempField.getText().trim());
-        } catch (NumberFormatException e) {
-            showAlert(Alert.AlertType.ERROR, "错误", "板温必须是有效数字。");
-            return;
-        }
-
-        // 4. 确定遍历范围
-        List<Double> gList = new ArrayList<>();
-        if (isGSelected) {
-            gList.add(selectedG.doubleValue());
-        } else {
-            for (int i = -20; i <= 20; i++) gList.add((double) i);
         }
 
-        List<Double> fList = new ArrayList<>();
-        for (int i = -120; i <= 120; i++) fList.add(i / 10.0);
-
-        // 解析探头参数
-        int probeIndex = Integer.parseInt(probeStr.replace("地面探头", ""));
-        boolean isLeft = "左".equals(sideStr);
-        String sideEn = isLeft ? "Left" : "Right";
-
-        // 准备结果列表
-        ObservableList<ResultModel> resultList = FXCollections.observableArrayList();
-
-        try {
-            List<TemperatureData> dataList = executeQuery(date, line, device);
-            if (dataList.isEmpty()) {
-                showAlert(Alert.AlertType.INFORMATION, "提示", "未找到符合筛选条件的数据行。");
-                return;
+        // 4. 解析探头参数，探头或方位选“全部”时每个组合一组计算参数
+        int targetAxis = isAxisSelected ? Integer.parseInt(selectedAxisStr) : 0;
+        SolverMode solverMode = SolverMode.fromLabel(solverModeComboBox.getValue());
+        int fStepsPerUnit = CalculationRequest.stepsPerUnit(fStepComboBox.getValue());
+        int gStepsPerUnit = CalculationRequest.stepsPerUnit(gStepComboBox.getValue());
+        List<CalculationRequest> requests = new ArrayList<>();
+        for (ProbeChannel channel : ProbeChannel.values()) {
+            boolean probeMatches = PROBE_ALL.equals(probeStr) || probeStr.equals("地面探头" + channel.getProbeIndex());
+            boolean sideMatches = SIDE_ALL.equals(sideStr) || sideStr.equals(channel.getSideLabel());
+            if (probeMatches && sideMatches) {
+                requests.add(new CalculationRequest(channel, E, plateChannel, isGSelected ? selectedG.doubleValue() : null,
+                        targetAxis, solverMode, fStepsPerUnit, gStepsPerUnit));
             }
+        }
+        CalculationRequest request = requests.get(0);
+        boolean isMatrix = requests.size() > 1;
+        boolean isGlobalFit = FIT_GLOBAL.equals(fitScopeComboBox.getValue());
 
-            int rowCount = 0;
-            for (TemperatureData row : dataList) {
-                rowCount++;
-                String rowInfo = String.format("行%d [%s]", rowCount, row.getDeviceName());
-
-                double C = getDynamicValue(row, "getLinearValueTemp" + probeIndex + sideEn.toLowerCase());
-                double D = getDynamicValue(row, "getNonlinearValueTemp" + probeIndex + sideEn.toLowerCase());
-
-                List<ResultModel> candidates = new ArrayList<>();
-
-                // 全排列遍历 F 和 G
-                for (double G : gList) {
-                    for (double F : fList) {
-                        // 计算该组合下 4个轴 的 H值 和 差值
-                        double[] diffs = new double[7]; // 索引3-6有效
-                        List<Double> diffList = new ArrayList<>();
-
-                        // 目标轴的差值 (用于排序)，如果没有选轴位，则默认为0
-                        double targetDiffForSort = 0.0;
-
-                        for (int ax = 3; ax <= 6; ax++) {
-                            double A = getDynamicValue(row, "getGroundTemp" + probeIndex + sideEn + ax);
-                            double Z = getDynamicValue(row, "getCarTemp" + sideEn + ax);
-                            double H = calculateH(A, C, D, E, F, G);
-                            double diff = H - Z;
-
-                            diffs[ax] = diff;
-                            diffList.add(diff);
-                        }
-
-                        // 【修改点】没有任何条件限制，直接计算并加入候选列表
-                        // 准备排序所需的数据
-                        if (isAxisSelected) {
-                            int targetAxis = Integer.parseInt(selectedAxisStr);
-                            targetDiffForSort = diffs[targetAxis];
-                        }
+        // 有任务在运行时不清空当前结果
+        if (taskRunner.isRunning()) {
+            showBusyAlert();
+            return;
+        }
 
-                        // 计算标准差
-                        double stdDev = calculateStdDev(diffList);
-
-                        ResultModel model = new ResultModel();
-                        model.setRowInfo(rowInfo);
-                        model.setF(F);
-                        model.setG(G);
-                        model.setStdDev(stdDev);
-                        model.setDiff3(diffs[3]);
-                        model.setDiff4(diffs[4]);
-                        model.setDiff5(diffs[5]);
-                        model.setDiff6(diffs[6]);
-                        model.setTargetDiff(targetDiffForSort);
-
-                        // 备注信息
-                        if (isAxisSelected) model.setRemark("优选轴" + selectedAxisStr);
-                        else model.setRemark("全轴优");
-
-                        candidates.add(model);
+        // 查询条件和数据都没有变化时复用上次查询的数据行和计算会话
+        String queryKey = date + "|" + line + "|" + device;
+        long dataVersion = DatabaseManager.getInstance().getDataVersion();
+        List<TemperatureData> cachedRows = queryKey.equals(lastQueryKey) && dataVersion == lastDataVersion ? lastRows : null;
+        CalculationSession cachedSession = cachedRows != null && session != null && session.isCompatible(request) ? session : null;
+
+        // 查询和计算都在后台线程执行。逐行计算的结果按行号顺序追加到列式结果缓冲区，
+        // 表格通过 ResultBufferList 每帧最多追加一次，各列直接读取缓冲区，先算完的行可以先查看；
+        // 整体拟合的结果很少，全部完成后一次性显示
+        ResultBufferList bufferList;
+        if (isGlobalFit) {
+            bufferList = null;
+            shownResults = ResultColumns.of(new ArrayList<>());
+            resultTableView.setItems(FXCollections.observableArrayList());
+        } else {
+            bufferList = new ResultBufferList();
+            bufferList.start();
+            shownResults = bufferList;
+            resultTableView.setItems(bufferList);
+        }
+        taskRunner.run(cachedRows != null ? "正在计算..." : "正在读取数据...",
+                monitor -> {
+                    List<TemperatureData> dataList = cachedRows != null ? cachedRows : executeQuery(date, line, device, monitor);
+                    if (dataList.isEmpty()) return new CalculationOutcome(false, dataList, null, null);
+                    CalculationEngine engine = CalculationEngine.getInstance();
+                    if (isGlobalFit) {
+                        // 每个设备只有 Top-K 条结果，全部累加完成后一次性显示
+                        List<ResultModel> globalResults = isMatrix
+                                ? engine.calculateGlobal(dataList, requests, monitor)
+                                : engine.calculateGlobal(dataList, request, monitor);
+                        return new CalculationOutcome(true, dataList, null, globalResults);
                     }
-                }
-
-                // --- 排序逻辑 ---
-                // 第一优先级：标准差 StdDev (ASC)
-                Comparator<ResultModel> comparator = Comparator.comparingDouble(ResultModel::getStdDev);
-
-                if (isAxisSelected) {
-                    // 轴位优选模式：第二优先级 -> 目标轴差值的绝对值
-                    comparator = comparator.thenComparingDouble(r -> Math.abs(r.getTargetDiff()));
-                } else {
-                    // 非线性筛选模式：第二优先级 -> 分数 (均值绝对值 + 标准差)
-                    comparator = comparator.thenComparingDouble(r -> {
-                        double mean = (r.getDiff3() + r.getDiff4() + r.getDiff5() + r.getDiff6()) / 4.0;
-                        return Math.abs(mean) + r.getStdDev();
-                    });
-                }
-
-                List<ResultModel> top5 = candidates.stream()
-                        .sorted(comparator)
-                        .limit(5)
-                        .collect(Collectors.toList());
 
-                // 设置排名并添加到总列表
-                for (int i = 0; i < top5.size(); i++) {
-                    top5.get(i).setRank(i + 1);
-                    resultList.add(top5.get(i));
-                }
-            }
-
-            resultTableView.setItems(resultList);
-
-            if (resultList.isEmpty()) {
-                showAlert(Alert.AlertType.INFORMATION, "结果", "计算完成，无结果。");
-            }
+                    ResultBuffer buffer = new ResultBuffer(dataList, requests);
+                    bufferList.attach(buffer);
+                    if (isMatrix) {
+                        // 矩阵模式：每行只读取一次，连续计算所有组合，每行的结果按组合顺序排在一起
+                        engine.calculateMatrix(dataList, requests, monitor, buffer);
+                        return new CalculationOutcome(true, dataList, null, null);
+                    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "计算出错", e.getMessage());
-        }
-    }
+                    // 首次计算就建立会话：之后只改变板温、轴位优选、求解方式或 F 精度时，
+                    // 每行每个 G 只需平移各轴差值并重新排序。中间量超出内存上限时走完整计算
+                    CalculationSession current = cachedSession;
+                    if (current == null && CalculationSession.fits(dataList.size(), request.getGValueArray().length)) {
+                        current = engine.openSession(dataList, request, monitor);
+                    }
+                    // 各行并行计算，结果保持原始行顺序
+                    if (current != null) {
+                        engine.calculate(current, request, monitor, buffer);
+                    } else {
+                        engine.calculateMatrix(dataList, requests, monitor, buffer);
+                    }
+                    return new CalculationOutcome(true, dataList, current, null);
+                },
+                outcome -> {
+                    if (outcome.session != null) {
+                        session = outcome.session;
+                    } else if (outcome.rows != lastRows) {
+                        session = null;
+                    }
+                    lastRows = outcome.rows;
+                    lastQueryKey = queryKey;
+                    lastDataVersion = dataVersion;
+
+                    if (!outcome.hasRows) {
+                        statusLabel.setText("未找到符合筛选条件的数据行");
+                        showAlert(Alert.AlertType.INFORMATION, "提示", "未找到符合筛选条件的数据行。");
+                        return;
+                    }
 
-    // --- 数据模型类 (用于 TableView) ---
-    public static class ResultModel {
-        private String rowInfo;
-        private int rank;
-        private double F;
-        private double G;
-        private double stdDev;
-        private double diff3;
-        private double diff4;
-        private double diff5;
-        private double diff6;
-        private double targetDiff; // 内部排序用
-        private String remark;
-
-        // Getters and Setters
-        public String getRowInfo() { return rowInfo; }
-        public void setRowInfo(String rowInfo) { this.rowInfo = rowInfo; }
-        public int getRank() { return rank; }
-        public void setRank(int rank) { this.rank = rank; }
-        public double getF() { return F; }
-        public void setF(double f) { F = f; }
-        public double getG() { return G; }
-        public void setG(double g) { G = g; }
-        public double getStdDev() { return stdDev; }
-        public void setStdDev(double stdDev) { this.stdDev = stdDev; }
-        public double getDiff3() { return diff3; }
-        public void setDiff3(double diff3) { this.diff3 = diff3; }
-        public double getDiff4() { return diff4; }
-        public void setDiff4(double diff4) { this.diff4 = diff4; }
-        public double getDiff5() { return diff5; }
-        public void setDiff5(double diff5) { this.diff5 = diff5; }
-        public double getDiff6() { return diff6; }
-        public void setDiff6(double diff6) { this.diff6 = diff6; }
-        public double getTargetDiff() { return targetDiff; }
-        public void setTargetDiff(double targetDiff) { this.targetDiff = targetDiff; }
-        public String getRemark() { return remark; }
-        public void setRemark(String remark) { this.remark = remark; }
-    }
+                    if (outcome.globalResults != null) {
+                        List<Integer> indices = new ArrayList<>(outcome.globalResults.size());
+                        for (int i = 0; i < outcome.globalResults.size(); i++) indices.add(i);
+                        shownResults = ResultColumns.of(outcome.globalResults);
+                        resultTableView.setItems(FXCollections.observableArrayList(indices));
+                    }
+                    // 逐行追加的结果与一次性返回的结果顺序相同
+                    int resultCount = resultTableView.getItems().size();
+                    statusLabel.setText("计算完成，共 " + resultCount + " 条结果");
 
-    // --- 数学公式 ---
-    private double calculateH(double A, double C, double D, double E, double F, double G) {
-        double D_pct = D / 100.0;
-        double G_pct = G / 100.0;
-        if (1 + D_pct == 0) return 0.0;
-        double term1 = (1 + G_pct) / (1 + D_pct);
-        double term2 = ((1 + G_pct) * D_pct / (1 + D_pct)) - G_pct;
-        return term1 * (A - C) + term2 * E + F;
+                    if (resultCount == 0) {
+                        showAlert(Alert.AlertType.INFORMATION, "结果", "计算完成，无结果。");
+                    }
+                },
+                e -> {
+                    e.printStackTrace();
+                    statusLabel.setText("计算出错: " + e.getMessage());
+                    showAlert(Alert.AlertType.ERROR, "计算出错", e.getMessage());
+                },
+                // 取消或出错时保留已显示的行
+                () -> {
+                    if (bufferList != null) bufferList.stop();
+                });
     }
 
-    private double calculateStdDev(List<Double> values) {
-        if (values.isEmpty()) return 0.0;
-        double sum = 0.0;
-        for (double v : values) sum += v;
-        double mean = sum / values.size();
-        double sumSq = 0.0;
-        for (double v : values) sumSq += Math.pow(v - mean, 2);
-        return Math.sqrt(sumSq / values.size());
+    // 板温来源对应的通道，手动输入时为 null
+    private static Channel plateChannelOf(String label) {
+        int index = Arrays.asList(PLATE_CHANNEL_LABELS).indexOf(label);
+        // PLATE_CHANNEL_LABELS 的顺序与 Channel 中的板温通道相同：内左、内右、外左、外右
+        return index < 0 ? null : Channel.plate(index < 2, index % 2 == 0);
     }
 
-    // --- 反射与工具 ---
-    private double getDynamicValue(TemperatureData data, String methodName) {
-        try {
-            Method method;
-            try {
-                method = TemperatureData.class.getMethod(methodName);
-            } catch (NoSuchMethodException e) {
-                if (methodName.endsWith("Left")) {
-                    method = TemperatureData.class.getMethod(methodName.replace("Left", "left"));
-                } else if (methodName.endsWith("Right")) {
-                    method = TemperatureData.class.getMethod(methodName.replace("Right", "right"));
-                } else {
-                    return 0.0;
-                }
-            }
-            Object res = method.invoke(data);
-            return res == null ? 0.0 : (Double) res;
-        } catch (Exception e) {
-            return 0.0;
+    // 后台计算的结果，连同所用的数据行和会话一起交回界面线程保存
+    private static class CalculationOutcome {
+        // 是否查询到了数据行
+        final boolean hasRows;
+        final List<TemperatureData> rows;
+        final CalculationSession session;
+        // 整体拟合的结果，逐行计算时为 null
+        final List<ResultModel> globalResults;
+
+        CalculationOutcome(boolean hasRows, List<TemperatureData> rows, CalculationSession session,
+                           List<ResultModel> globalResults) {
+            this.hasRows = hasRows;
+            this.rows = rows;
+            this.session = session;
+            this.globalResults = globalResults;
         }
     }
 
@@ -389,8 +417,8 @@ public class CalculationController {
             if (!"line".equals(trigger)) updateComboItems(lineComboBox, getLinkedDistinctValues("line_number", curDate, null, curDevice), curLine);
             if (!"device".equals(trigger)) updateComboItems(deviceComboBox, getLinkedDistinctValues("device_name", curDate, curLine, null), curDevice);
 
-            if (probeComboBox.getItems().isEmpty()) probeComboBox.setItems(FXCollections.observableArrayList("地面探头1", "地面探头2", "地面探头3", "地面探头4"));
-            if (sideComboBox.getItems().isEmpty()) sideComboBox.setItems(FXCollections.observableArrayList("左", "右"));
+            if (probeComboBox.getItems().isEmpty()) probeComboBox.setItems(FXCollections.observableArrayList("地面探头1", "地面探头2", "地面探头3", "地面探头4", PROBE_ALL));
+            if (sideComboBox.getItems().isEmpty()) sideComboBox.setItems(FXCollections.observableArrayList("左", "右", SIDE_ALL));
         } catch (SQLException e) {
             e.printStackTrace();
         } finally {
@@ -419,7 +447,8 @@ public class CalculationController {
         if (device != null && !device.isEmpty()) { sql.append(" AND device_name = ?"); params.add(device); }
         sql.append(" ORDER BY " + targetCol);
 
-        try (PreparedStatement pstmt = DatabaseManager.getInstance().getConnection().prepareStatement(sql.toString())) {
+        try (DatabaseManager.ReadConnection conn = DatabaseManager.getInstance().acquireReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
             for (int i = 0; i < params.size(); i++) pstmt.setObject(i + 1, params.get(i));
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -431,61 +460,27 @@ public class CalculationController {
         return list;
     }
 
-    private List<TemperatureData> executeQuery(String date, String line, String device) throws SQLException {
-        StringBuilder sql = new StringBuilder("SELECT * FROM " + TABLE_NAME + " WHERE 1=1");
-        List<Object> params = new ArrayList<>();
-        if (date != null && !date.isEmpty()) { sql.append(" AND date = ?"); params.add(date); }
-        if (line != null && !line.isEmpty()) { sql.append(" AND line_number = ?"); params.add(line); }
-        if (device != null && !device.isEmpty()) { sql.append(" AND device_name = ?"); params.add(device); }
-
+    // 逐行读取查询结果，定期报告进度并检查是否已取消
+    private List<TemperatureData> executeQuery(String date, String line, String device, ProgressMonitor monitor) throws SQLException {
         List<TemperatureData> list = new ArrayList<>();
-        try (PreparedStatement pstmt = DatabaseManager.getInstance().getConnection().prepareStatement(sql.toString())) {
-            for (int i = 0; i < params.size(); i++) { pstmt.setObject(i + 1, params.get(i)); }
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) list.add(mapResultSetToTemperatureData(rs));
-            }
-        }
+        new TemperatureRepository(DatabaseManager.getInstance())
+                .forEach(new TemperatureRepository.Filter(date, line, device), data -> {
+                    list.add(data);
+                    if (list.size() % QUERY_PROGRESS_INTERVAL == 0) {
+                        if (monitor.isCancelled()) throw new CancellationException("计算已取消");
+                        monitor.update(list.size(), -1, "已读取 " + list.size() + " 行");
+                    }
+                });
         return list;
     }
 
-    private TemperatureData mapResultSetToTemperatureData(ResultSet rs) throws SQLException {
-        TemperatureData data = new TemperatureData();
-        data.setLineNumber(rs.getString("line_number"));
-        data.setDeviceName(rs.getString("device_name"));
-        String dateStr = rs.getString("date");
-        if(dateStr!=null) try { if(dateStr.startsWith("--")) dateStr=dateStr.substring(2); data.setDate(MonthDay.parse(dateStr, DateTimeFormatter.ofPattern("MM-dd"))); } catch(Exception e){}
-
-        data.setCarTempLeft3(rs.getDouble("car_temp_left3")); data.setCarTempLeft4(rs.getDouble("car_temp_left4"));
-        data.setCarTempLeft5(rs.getDouble("car_temp_left5")); data.setCarTempLeft6(rs.getDouble("car_temp_left6"));
-        data.setCarTempRight3(rs.getDouble("car_temp_right3")); data.setCarTempRight4(rs.getDouble("car_temp_right4"));
-        data.setCarTempRight5(rs.getDouble("car_temp_right5")); data.setCarTempRight6(rs.getDouble("car_temp_right6"));
-        data.setPlateTempInnerLeft(rs.getDouble("plate_temp_inner_left"));
-        data.setPlateTempInnerRight(rs.getDouble("plate_temp_inner_right"));
-
-        for(int i=1; i<=4; i++) {
-            String[] sides = {"left", "right"};
-            for(String side : sides) {
-                for(int k=3; k<=6; k++) {
-                    String col = "ground_temp"+i+"_"+side+k;
-                    String sideCamel = side.equals("left")?"Left":"Right";
-                    callSetter(data, "setGroundTemp"+i+sideCamel+k, rs.getDouble(col));
-                }
-                callSetter(data, "setLinearValueTemp"+i+side, rs.getDouble("linear_value_temp"+i+side));
-                callSetter(data, "setNonlinearValueTemp"+i+side, rs.getDouble("nonlinear_value_temp"+i+side));
-            }
-        }
-        return data;
-    }
-
-    private void callSetter(Object obj, String methodName, double val) {
-        try {
-            Method m = obj.getClass().getMethod(methodName, double.class);
-            m.invoke(obj, val);
-        } catch(Exception e) {}
-    }
-
     @FXML
     public void returnToQueryView() {
+        // 同 QueryController.goToCalculationView：任务运行期间不切换界面
+        if (taskRunner.isRunning()) {
+            showBusyAlert();
+            return;
+        }
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/com/zsp/calh/cal/query-view.fxml"));
             Stage stage = (Stage) resultTableView.getScene().getWindow();
@@ -497,4 +492,8 @@ public class CalculationController {
     private void showAlert(Alert.AlertType type, String title, String msg) {
         new Alert(type, msg).showAndWait();
     }
+
+    private void showBusyAlert() {
+        showAlert(Alert.AlertType.WARNING, "提示", "当前任务尚未完成，请等待完成或先取消。");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.zsp.calh.cal.controller;
+
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 表格列绑定：取值函数在建列时确定一次，表格滚动、重绘时单元格直接调用该函数，
+ * 不再按方法名反射查找、也不在取值时格式化。
+ * 数值列保持 Double 类型（按数值排序），显示文本由 FormattedDoubleCell 生成，
+ * 单元格的值不变时复用上次的文本
+ */
+public final class ColumnBindings {
+
+    private ColumnBindings() {
+    }
+
+    /**
+     * 文本列
+     */
+    public static <S> void bindString(TableColumn<S, String> column, Function<S, String> accessor) {
+        column.setCellValueFactory(cell -> new SimpleStringProperty(accessor.apply(cell.getValue())));
+    }
+
+    /**
+     * 数值列，使用表格默认的显示方式
+     */
+    public static <S> void bindDouble(TableColumn<S, Double> column, ToDoubleFunction<S> accessor) {
+        column.setCellValueFactory(cell -> new SimpleObjectProperty<>(accessor.applyAsDouble(cell.getValue())));
+    }
+
+    /**
+     * 数值列，按 format（String.format 格式，如 "%.3f"）显示
+     */
+    public static <S> void bindDouble(TableColumn<S, Double> column, ToDoubleFunction<S> accessor, String format) {
+        bindDouble(column, accessor);
+        column.setCellFactory(col -> new FormattedDoubleCell<>(format));
+    }
+
+    /**
+     * 按固定格式显示数值的单元格，缓存最近一次格式化的值和文本
+     */
+    private static class FormattedDoubleCell<S> extends TableCell<S, Double> {
+        private final String format;
+        private Double formattedValue;
+        private String formattedText;
+
+        FormattedDoubleCell(String format) {
+            this.format = format;
+        }
+
+        @Override
+        protected void updateItem(Double item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null) {
+                setText(null);
+                return;
+            }
+            if (!item.equals(formattedValue)) {
+                formattedValue = item;
+                formattedText = String.format(format, item);
+            }
+            setText(formattedText);
+        }
+    }
+}
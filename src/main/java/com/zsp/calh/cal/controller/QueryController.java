@@ -1,9 +1,11 @@
 package com.zsp.calh.cal.controller;
 
+import com.zsp.calh.cal.model.Channel;
 import com.zsp.calh.cal.model.TemperatureData;
+import com.zsp.calh.cal.model.TemperatureDataModel;
+import com.zsp.calh.cal.service.ProgressMonitor;
 import com.zsp.calh.cal.utils.DatabaseManager;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.beans.property.SimpleStringProperty;
+import com.zsp.calh.cal.utils.TemperatureRepository;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -14,7 +16,6 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -23,6 +24,7 @@ import java.time.MonthDay;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 public class QueryController {
     // 筛选控件
@@ -35,6 +37,8 @@ public class QueryController {
     // 表格与状态
     @FXML private TableView<TemperatureData> dataTableView;
     @FXML private Label statusLabel;
+    @FXML private ProgressBar progressBar;
+    @FXML private Button cancelButton;
 
     // 基础固定列
     private TableColumn<TemperatureData, String> lineNumberColumn;
@@ -42,10 +46,15 @@ public class QueryController {
     private TableColumn<TemperatureData, String> dateColumn;
 
     private static final String TABLE_NAME = "temperature_data";
+    // 查询时每读取多少行报告一次进度
+    private static final int QUERY_PROGRESS_INTERVAL = 1000;
+    private static final DateTimeFormatter DATE_COLUMN_FORMAT = DateTimeFormatter.ofPattern("MM-dd");
     private boolean isUpdating = false;
+    private BackgroundTaskRunner taskRunner;
 
     @FXML
     public void initialize() {
+        taskRunner = new BackgroundTaskRunner(statusLabel, progressBar, cancelButton);
         setupBaseColumns();
 
         // 初始化下拉框监听器
@@ -75,42 +84,49 @@ public class QueryController {
         File selectedFile = fileChooser.showOpenDialog(stage);
 
         if (selectedFile != null) {
-            statusLabel.setText("正在处理文件: " + selectedFile.getName() + " ...");
-
-            try {
-                // 使用 LoadController 读取和保存
-                LoadController loadController = new LoadController();
-                List<TemperatureData> data = loadController.readExcelToTemperatureData(selectedFile.getAbsolutePath());
-
-                if (data != null && !data.isEmpty()) {
-                    // 【修改】获取实际插入的条数（int）
-                    int insertedCount = loadController.saveTemperatureDataToSQLite(data, TABLE_NAME);
-                    int ignoredCount = data.size() - insertedCount;
-
-                    // 刷新下拉框（可能有新日期/设备）
-                    refreshComboBoxOptions(null);
-
-                    // 【修改】构建详细的提示信息
-                    String msg = String.format("读取总数：%d 条\n成功入库：%d 条\n忽略重复：%d 条",
-                            data.size(), insertedCount, ignoredCount);
-
-                    statusLabel.setText("导入完成：" + msg.replace("\n", ", "));
-                    showAlert(Alert.AlertType.INFORMATION, "导入结果", msg);
-
-                    // 自动刷新当前查询
-                    performQuery();
-                } else {
-                    statusLabel.setText("导入失败：文件为空或无有效数据");
-                    showAlert(Alert.AlertType.WARNING, "数据为空", "未从文件中读取到有效数据。");
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                statusLabel.setText("导入出错: " + e.getMessage());
-                showAlert(Alert.AlertType.ERROR, "导入错误", e.getMessage());
+            // 使用 LoadController 流水线读取和保存：边解析边分块入库，在后台线程执行
+            String filePath = selectedFile.getAbsolutePath();
+            boolean started = taskRunner.run("正在处理文件: " + selectedFile.getName() + " ...",
+                    monitor -> new LoadController().importExcelToSQLite(
+                            filePath, TABLE_NAME, LoadController.DEFAULT_IMPORT_CHUNK_SIZE, monitor),
+                    result -> {
+                        if (result.getReadCount() > 0) {
+                            // 刷新下拉框（可能有新日期/设备）
+                            refreshComboBoxOptions(null);
+
+                            // 【修改】构建详细的提示信息
+                            String msg = String.format("读取总数：%d 条\n成功入库：%d 条\n忽略重复：%d 条",
+                                    result.getReadCount(), result.getInsertedCount(), result.getIgnoredCount());
+
+                            statusLabel.setText("导入完成：" + msg.replace("\n", ", "));
+                            showAlert(Alert.AlertType.INFORMATION, "导入结果", msg);
+
+                            // 自动刷新当前查询
+                            performQuery();
+                        } else {
+                            statusLabel.setText("导入失败：文件为空或无有效数据");
+                            showAlert(Alert.AlertType.WARNING, "数据为空", "未从文件中读取到有效数据。");
+                        }
+                    },
+                    e -> {
+                        e.printStackTrace();
+                        statusLabel.setText("导入出错: " + e.getMessage());
+                        showAlert(Alert.AlertType.ERROR, "导入错误", e.getMessage());
+                    });
+            if (!started) {
+                showBusyAlert();
             }
         }
     }
 
+    /**
+     * 取消正在运行的导入或查询
+     */
+    @FXML
+    public void cancelTask() {
+        taskRunner.cancel();
+    }
+
     /**
      * 设置下拉框的监听器，实现联动逻辑
      */
@@ -214,7 +230,8 @@ public class QueryController {
 
         sql.append(" ORDER BY " + targetCol);
 
-        try (PreparedStatement pstmt = DatabaseManager.getInstance().getConnection().prepareStatement(sql.toString())) {
+        try (DatabaseManager.ReadConnection conn = DatabaseManager.getInstance().acquireReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
             for (int i = 0; i < params.size(); i++) {
                 pstmt.setObject(i + 1, params.get(i));
             }
@@ -241,21 +258,25 @@ public class QueryController {
             return;
         }
 
-        try {
-            // 1. 获取数据
-            List<TemperatureData> data = executeQuery(date, line, device);
-
-            // 2. 动态生成列
-            updateTableViewColumns(probeStr, sideStr);
-
-            // 3. 填充表格
-            dataTableView.setItems(FXCollections.observableArrayList(data));
-            statusLabel.setText("查询完成，显示 " + data.size() + " 条记录");
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            statusLabel.setText("数据库查询失败");
-            showAlert(Alert.AlertType.ERROR, "查询失败", e.getMessage());
+        // 1. 在后台线程获取数据
+        boolean started = taskRunner.run("正在查询...",
+                monitor -> executeQuery(date, line, device, monitor),
+                selection -> {
+                    // 2. 动态生成列
+                    updateTableViewColumns(probeStr, sideStr);
+
+                    // 3. 填充表格
+                    dataTableView.setItems(FXCollections.observableArrayList(selection.getRows()));
+                    statusLabel.setText("查询完成，显示 " + selection.size() + " 条记录"
+                            + describeMeanDifferences(selection, probeStr, sideStr));
+                },
+                e -> {
+                    e.printStackTrace();
+                    statusLabel.setText("数据库查询失败");
+                    showAlert(Alert.AlertType.ERROR, "查询失败", e.getMessage());
+                });
+        if (!started) {
+            showBusyAlert();
         }
     }
 
@@ -269,6 +290,11 @@ public class QueryController {
 
     @FXML
     public void goToCalculationView() {
+        // 新界面有自己的任务执行器，切换后本界面的任务无法再取消，也不再受“同时只运行一个任务”的限制
+        if (taskRunner.isRunning()) {
+            showBusyAlert();
+            return;
+        }
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/com/zsp/calh/cal/calculation-view.fxml"));
             Stage stage = (Stage) dataTableView.getScene().getWindow();
@@ -285,22 +311,17 @@ public class QueryController {
 
     private void setupBaseColumns() {
         lineNumberColumn = new TableColumn<>("线别");
-        lineNumberColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getLineNumber()));
+        ColumnBindings.bindString(lineNumberColumn, TemperatureData::getLineNumber);
 
         deviceNameColumn = new TableColumn<>("设备名称");
-        deviceNameColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getDeviceName()));
+        ColumnBindings.bindString(deviceNameColumn, TemperatureData::getDeviceName);
 
         dateColumn = new TableColumn<>("日期");
-        dateColumn.setCellValueFactory(cell -> {
-            if (cell.getValue().getDate() != null) {
-                return new SimpleStringProperty(cell.getValue().getDate().format(DateTimeFormatter.ofPattern("MM-dd")));
-            }
-            return new SimpleStringProperty("");
-        });
+        ColumnBindings.bindString(dateColumn, data -> data.getDate() != null ? data.getDate().format(DATE_COLUMN_FORMAT) : "");
     }
 
     /**
-     * 根据选择动态生成表格列
+     * 根据选择动态生成表格列，每列对应的温度通道在此确定一次
      */
     private void updateTableViewColumns(String probeStr, String sideStr) {
         dataTableView.getColumns().clear();
@@ -309,13 +330,12 @@ public class QueryController {
         // 解析: "地面探头1" -> 1
         int probeIndex = Integer.parseInt(probeStr.replace("地面探头", ""));
         boolean isLeft = "左".equals(sideStr);
-        String sideEn = isLeft ? "Left" : "Right";
 
         // 动态添加4个车上温度列 (3-6)
         for (int i = 3; i <= 6; i++) {
             TableColumn<TemperatureData, Double> col = new TableColumn<>("车上" + sideStr + i);
-            String methodName = "getCarTemp" + sideEn + i; // e.g., getCarTempLeft3
-            col.setCellValueFactory(cell -> getReflectedProperty(cell.getValue(), methodName));
+            Channel channel = Channel.car(isLeft, i); // e.g., CAR_LEFT_3
+            ColumnBindings.bindDouble(col, data -> data.get(channel));
             col.setPrefWidth(90);
             dataTableView.getColumns().add(col);
         }
@@ -323,45 +343,58 @@ public class QueryController {
         // 动态添加4个地面温度列 (3-6)
         for (int i = 3; i <= 6; i++) {
             TableColumn<TemperatureData, Double> col = new TableColumn<>("地面" + probeIndex + sideStr + i);
-            String methodName = "getGroundTemp" + probeIndex + sideEn + i; // e.g., getGroundTemp1Left3
-            col.setCellValueFactory(cell -> getReflectedProperty(cell.getValue(), methodName));
+            Channel channel = Channel.ground(probeIndex, isLeft, i); // e.g., GROUND1_LEFT_3
+            ColumnBindings.bindDouble(col, data -> data.get(channel));
             col.setPrefWidth(110);
             dataTableView.getColumns().add(col);
         }
     }
 
-    // 反射辅助方法
-    private SimpleObjectProperty<Double> getReflectedProperty(TemperatureData data, String methodName) {
-        try {
-            Method m = TemperatureData.class.getMethod(methodName);
-            return new SimpleObjectProperty<>((Double) m.invoke(data));
-        } catch (Exception e) {
-            return new SimpleObjectProperty<>(0.0);
+    /**
+     * 所显示的探头、方位在各轴上 地面温度 - 车上温度 的平均值，直接按列统计，没有数据时为空字符串
+     */
+    private static String describeMeanDifferences(TemperatureDataModel.Selection selection, String probeStr, String sideStr) {
+        if (selection.size() == 0) return "";
+        int probeIndex = Integer.parseInt(probeStr.replace("地面探头", ""));
+        boolean isLeft = "左".equals(sideStr);
+        StringBuilder text = new StringBuilder("；地面" + probeIndex + sideStr + "与车上平均温差");
+        for (int i = 3; i <= 6; i++) {
+            double diff = selection.mean(Channel.ground(probeIndex, isLeft, i)) - selection.mean(Channel.car(isLeft, i));
+            text.append(String.format(" 轴%d: %.2f", i, diff));
         }
+        return text.toString();
     }
 
-    private List<TemperatureData> executeQuery(String date, String line, String device) throws SQLException {
-        StringBuilder sql = new StringBuilder("SELECT * FROM " + TABLE_NAME + " WHERE 1=1");
-        List<Object> params = new ArrayList<>();
-
-        if (date != null && !date.isEmpty()) { sql.append(" AND date = ?"); params.add(date); }
-        if (line != null && !line.isEmpty()) { sql.append(" AND line_number = ?"); params.add(line); }
-        if (device != null && !device.isEmpty()) { sql.append(" AND device_name = ?"); params.add(device); }
-
-        List<TemperatureData> list = new ArrayList<>();
-        try (PreparedStatement pstmt = DatabaseManager.getInstance().getConnection().prepareStatement(sql.toString())) {
-            for (int i = 0; i < params.size(); i++) {
-                pstmt.setObject(i + 1, params.get(i));
-            }
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapResultSetToTemperatureData(rs));
-                }
-            }
+    /**
+     * 在 TemperatureDataModel 中按条件筛选，与按条件查库的结果和顺序相同，通过哈希索引查找。
+     * 表中数据变化（数据版本改变）后才重新读取整张表，读取时每 QUERY_PROGRESS_INTERVAL 行报告一次进度并检查是否已取消
+     */
+    private TemperatureDataModel.Selection executeQuery(String date, String line, String device, ProgressMonitor monitor) throws SQLException {
+        TemperatureDataModel model = TemperatureDataModel.getInstance();
+        // 先取版本再读表，读取期间写入的数据会让下次查询重新读取
+        long dataVersion = DatabaseManager.getInstance().getDataVersion();
+        if (model.getDataVersion() != dataVersion) {
+            List<TemperatureData> list = new ArrayList<>();
+            new TemperatureRepository(DatabaseManager.getInstance())
+                    .forEach(TemperatureRepository.Filter.ALL, data -> {
+                        list.add(data);
+                        if (list.size() % QUERY_PROGRESS_INTERVAL == 0) {
+                            if (monitor.isCancelled()) throw new CancellationException("查询已取消");
+                            monitor.update(list.size(), -1, "已读取 " + list.size() + " 行");
+                        }
+                    });
+            model.setTemperatureDataList(list, dataVersion);
         }
-        return list;
+
+        // 库中的日期与选项都是 "MM-dd" 形式；无法解析的日期不匹配任何行
+        MonthDay day = TemperatureRepository.parseDate(date);
+        if (day == null && date != null && !date.isEmpty()) return TemperatureDataModel.Selection.EMPTY;
+        return model.select(day, line, device);
     }
 
+    private void showBusyAlert() {
+        showAlert(Alert.AlertType.WARNING, "提示", "当前任务尚未完成，请等待完成或先取消。");
+    }
 
     private void showAlert(Alert.AlertType type, String title, String msg) {
         Alert alert = new Alert(type);
@@ -370,94 +403,4 @@ public class QueryController {
         alert.setContentText(msg);
         alert.showAndWait();
     }
-
-    // --- 完整的数据映射 (确保所有字段都被读取) ---
-    private TemperatureData mapResultSetToTemperatureData(ResultSet rs) throws SQLException {
-        TemperatureData data = new TemperatureData();
-        data.setId(rs.getLong("id"));
-        data.setLineNumber(rs.getString("line_number"));
-        data.setDeviceName(rs.getString("device_name"));
-
-        // 日期处理
-        String dateStr = rs.getString("date");
-        if (dateStr != null && !dateStr.isEmpty()) {
-            try {
-                if (dateStr.startsWith("--")) dateStr = dateStr.substring(2);
-                data.setDate(MonthDay.parse(dateStr, DateTimeFormatter.ofPattern("MM-dd")));
-            } catch (Exception e) { /* ignore */ }
-        }
-
-        // 车上温度 (Left3-6, Right3-6)
-        data.setCarTempLeft3(rs.getDouble("car_temp_left3"));
-        data.setCarTempLeft4(rs.getDouble("car_temp_left4"));
-        data.setCarTempLeft5(rs.getDouble("car_temp_left5"));
-        data.setCarTempLeft6(rs.getDouble("car_temp_left6"));
-        data.setCarTempRight3(rs.getDouble("car_temp_right3"));
-        data.setCarTempRight4(rs.getDouble("car_temp_right4"));
-        data.setCarTempRight5(rs.getDouble("car_temp_right5"));
-        data.setCarTempRight6(rs.getDouble("car_temp_right6"));
-
-        // 地面探头 1-4
-        for (int i = 1; i <= 4; i++) {
-            // Left/Right 3-6
-            setGroundTemp(data, rs, i, "left", 3);
-            setGroundTemp(data, rs, i, "left", 4);
-            setGroundTemp(data, rs, i, "left", 5);
-            setGroundTemp(data, rs, i, "left", 6);
-            setGroundTemp(data, rs, i, "right", 3);
-            setGroundTemp(data, rs, i, "right", 4);
-            setGroundTemp(data, rs, i, "right", 5);
-            setGroundTemp(data, rs, i, "right", 6);
-
-            // 线性与非线性 (Left/Right)
-            setLinearNonLinear(data, rs, i, "left");
-            setLinearNonLinear(data, rs, i, "right");
-        }
-
-        // 板温
-        data.setPlateTempInnerLeft(rs.getDouble("plate_temp_inner_left"));
-        data.setPlateTempInnerRight(rs.getDouble("plate_temp_inner_right"));
-        data.setPlateTempOuterLeft(rs.getDouble("plate_temp_outer_left"));
-        data.setPlateTempOuterRight(rs.getDouble("plate_temp_outer_right"));
-
-        return data;
-    }
-
-    // 辅助映射方法：利用反射批量设置，避免写几百行代码
-    private void setGroundTemp(TemperatureData data, ResultSet rs, int probe, String side, int idx) {
-        try {
-            // DB column: ground_temp1_left3
-            String colName = "ground_temp" + probe + "_" + side + idx;
-            double val = rs.getDouble(colName);
-
-            // Setter: setGroundTemp1Left3
-            String sideCamel = side.substring(0, 1).toUpperCase() + side.substring(1); // "Left"
-            String methodName = "setGroundTemp" + probe + sideCamel + idx;
-
-            Method m = TemperatureData.class.getMethod(methodName, double.class);
-            m.invoke(data, val);
-        } catch (Exception e) {
-            // 忽略字段不存在的错误，防止个别列名不匹配导致崩溃
-        }
-    }
-
-    private void setLinearNonLinear(TemperatureData data, ResultSet rs, int probe, String side) {
-        try {
-            // Linear DB: linear_value_temp1left
-            String linCol = "linear_value_temp" + probe + side;
-            // Nonlinear DB: nonlinear_value_temp1left
-            String nonLinCol = "nonlinear_value_temp" + probe + side;
-
-            // Setters: setLinearValueTemp1left (注意 Model 定义中通常是小写 left)
-            // 根据你的 TemperatureData.java，如果定义是 setLinearValueTemp1left，则直接用
-            String methodSuffix = "Temp" + probe + side; // Temp1left
-
-            Method mLin = TemperatureData.class.getMethod("setLinearValueTemp" + methodSuffix, double.class);
-            mLin.invoke(data, rs.getDouble(linCol));
-
-            Method mNon = TemperatureData.class.getMethod("setNonlinearValueTemp" + methodSuffix, double.class);
-            mNon.invoke(data, rs.getDouble(nonLinCol));
-
-        } catch (Exception e) { }
-    }
-}
\ No newline at end of file
+}
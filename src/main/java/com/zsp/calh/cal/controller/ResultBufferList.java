@@ -0,0 +1,126 @@
+package com.zsp.calh.cal.controller;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.service.ResultBuffer;
+import com.zsp.calh.cal.service.ResultColumns;
+import javafx.animation.AnimationTimer;
+import javafx.collections.ObservableListBase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * ResultBuffer 的只读表格视图：列表的元素是缓冲区中的条目下标，表格各列通过 ResultColumns
+ * 直接从缓冲区的数组读取，不为条目创建 ResultModel。后台线程计算期间，界面线程每帧检查一次
+ * 缓冲区中新追加的条目并通知表格，不会因为结果产生得太快而塞满界面事件队列。
+ * <p>
+ * 排序只重排下标（见 sort），不移动缓冲区中的数据；排序后追加的条目按原顺序排在最后
+ */
+public class ResultBufferList extends ObservableListBase<Integer> implements ResultColumns {
+    // 后台线程通过 attach 设置，界面线程在下一帧读取
+    private volatile ResultBuffer pendingBuffer;
+    private ResultBuffer buffer;
+    private int size;
+    // 排序后第 i 行对应的缓冲区下标，未排序时为 null
+    private int[] order;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+
+    /**
+     * 设置要显示的缓冲区，可在任意线程调用，每个列表只能设置一次
+     */
+    public void attach(ResultBuffer buffer) {
+        if (pendingBuffer != null) {
+            throw new IllegalStateException("结果缓冲区已经设置");
+        }
+        pendingBuffer = buffer;
+    }
+
+    /**
+     * 开始按帧显示新条目，必须在界面线程调用
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * 停止按帧显示，并显示尚未显示的全部条目，必须在界面线程调用
+     */
+    public void stop() {
+        timer.stop();
+        flush();
+    }
+
+    /**
+     * 第 index 行对应的缓冲区下标
+     */
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("下标超出范围: " + index + ", 共 " + size + " 条");
+        }
+        return order != null && index < order.length ? order[index] : index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // 以下按缓冲区下标（即 get 返回的元素）读取，只在有条目显示之后调用
+    @Override public String getRowInfo(int index) { return buffer.getRowInfo(index); }
+    @Override public ProbeChannel getChannel(int index) { return buffer.getChannel(index); }
+    @Override public int getRank(int index) { return buffer.getRank(index); }
+    @Override public double getF(int index) { return buffer.getF(index); }
+    @Override public double getG(int index) { return buffer.getG(index); }
+    @Override public double getStdDev(int index) { return buffer.getStdDev(index); }
+    @Override public double getDiff(int index, int axle) { return buffer.getDiff(index, axle); }
+    @Override public String getRemark(int index) { return buffer.getRemark(index); }
+
+    /**
+     * 按 comparator 稳定排序当前显示的条目，供表格的排序策略调用
+     */
+    @Override
+    public void sort(Comparator<? super Integer> comparator) {
+        if (comparator == null || size == 0) return;
+        Integer[] items = new Integer[size];
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = i;
+            items[i] = get(i);
+        }
+        Arrays.sort(sorted, (a, b) -> comparator.compare(items[a], items[b]));
+
+        // permutation[旧位置] = 新位置
+        int[] newOrder = new int[size];
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            int oldPosition = sorted[i];
+            newOrder[i] = items[oldPosition];
+            permutation[oldPosition] = i;
+        }
+        order = newOrder;
+        beginChange();
+        nextPermutation(0, size, permutation);
+        endChange();
+    }
+
+    // 把缓冲区中新追加的条目通知给表格
+    private void flush() {
+        if (buffer == null) {
+            buffer = pendingBuffer;
+            if (buffer == null) return;
+        }
+        int available = buffer.size();
+        if (available <= size) return;
+        int from = size;
+        size = available;
+        beginChange();
+        nextAdd(from, available);
+        endChange();
+    }
+}
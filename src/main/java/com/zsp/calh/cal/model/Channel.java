@@ -0,0 +1,168 @@
+package com.zsp.calh.cal.model;
+
+/**
+ * TemperatureData 中的 60 个温度通道。
+ * 枚举顺序即 TemperatureData 内部数组的下标，与表 temperature_data 和导入 Excel 中温度列的顺序一致
+ */
+public enum Channel {
+    // 车上测量温度
+    CAR_LEFT_3("car_temp_left3"),           // 车上测量温度左3
+    CAR_LEFT_4("car_temp_left4"),           // 车上测量温度左4
+    CAR_LEFT_5("car_temp_left5"),           // 车上测量温度左5
+    CAR_LEFT_6("car_temp_left6"),           // 车上测量温度左6
+    CAR_RIGHT_3("car_temp_right3"),         // 车上测量温度右3
+    CAR_RIGHT_4("car_temp_right4"),         // 车上测量温度右4
+    CAR_RIGHT_5("car_temp_right5"),         // 车上测量温度右5
+    CAR_RIGHT_6("car_temp_right6"),         // 车上测量温度右6
+
+    // 地面探测温度1
+    GROUND1_LEFT_3("ground_temp1_left3"),   // 地面探测温度1左3
+    GROUND1_LEFT_4("ground_temp1_left4"),   // 地面探测温度1左4
+    GROUND1_LEFT_5("ground_temp1_left5"),   // 地面探测温度1左5
+    GROUND1_LEFT_6("ground_temp1_left6"),   // 地面探测温度1左6
+    GROUND1_RIGHT_3("ground_temp1_right3"), // 地面探测温度1右3
+    GROUND1_RIGHT_4("ground_temp1_right4"), // 地面探测温度1右4
+    GROUND1_RIGHT_5("ground_temp1_right5"), // 地面探测温度1右5
+    GROUND1_RIGHT_6("ground_temp1_right6"), // 地面探测温度1右6
+
+    // 地面探测温度2（内探）
+    GROUND2_LEFT_3("ground_temp2_left3"),   // 地面探测温度2左3（内探）
+    GROUND2_LEFT_4("ground_temp2_left4"),   // 地面探测温度2左4（内探）
+    GROUND2_LEFT_5("ground_temp2_left5"),   // 地面探测温度2左5（内探）
+    GROUND2_LEFT_6("ground_temp2_left6"),   // 地面探测温度2左6（内探）
+    GROUND2_RIGHT_3("ground_temp2_right3"), // 地面探测温度2右3（内探）
+    GROUND2_RIGHT_4("ground_temp2_right4"), // 地面探测温度2右4（内探）
+    GROUND2_RIGHT_5("ground_temp2_right5"), // 地面探测温度2右5（内探）
+    GROUND2_RIGHT_6("ground_temp2_right6"), // 地面探测温度2右6（内探）
+
+    // 地面探测温度3
+    GROUND3_LEFT_3("ground_temp3_left3"),   // 地面探测温度3左3
+    GROUND3_LEFT_4("ground_temp3_left4"),   // 地面探测温度3左4
+    GROUND3_LEFT_5("ground_temp3_left5"),   // 地面探测温度3左5
+    GROUND3_LEFT_6("ground_temp3_left6"),   // 地面探测温度3左6
+    GROUND3_RIGHT_3("ground_temp3_right3"), // 地面探测温度3右3
+    GROUND3_RIGHT_4("ground_temp3_right4"), // 地面探测温度3右4
+    GROUND3_RIGHT_5("ground_temp3_right5"), // 地面探测温度3右5
+    GROUND3_RIGHT_6("ground_temp3_right6"), // 地面探测温度3右6
+
+    // 地面探测温度4（外探）
+    GROUND4_LEFT_3("ground_temp4_left3"),   // 地面探测温度4左3（外探）
+    GROUND4_LEFT_4("ground_temp4_left4"),   // 地面探测温度4左4（外探）
+    GROUND4_LEFT_5("ground_temp4_left5"),   // 地面探测温度4左5（外探）
+    GROUND4_LEFT_6("ground_temp4_left6"),   // 地面探测温度4左6（外探）
+    GROUND4_RIGHT_3("ground_temp4_right3"), // 地面探测温度4右3（外探）
+    GROUND4_RIGHT_4("ground_temp4_right4"), // 地面探测温度4右4（外探）
+    GROUND4_RIGHT_5("ground_temp4_right5"), // 地面探测温度4右5（外探）
+    GROUND4_RIGHT_6("ground_temp4_right6"), // 地面探测温度4右6（外探）
+
+    // 线性值
+    LINEAR1_LEFT("linear_value_temp1left"), // 线性探1左
+    LINEAR1_RIGHT("linear_value_temp1right"),// 线性探1右
+    LINEAR2_LEFT("linear_value_temp2left"), // 线性探2左
+    LINEAR2_RIGHT("linear_value_temp2right"),// 线性探2右
+    LINEAR3_LEFT("linear_value_temp3left"), // 线性探3左
+    LINEAR3_RIGHT("linear_value_temp3right"),// 线性探3右
+    LINEAR4_LEFT("linear_value_temp4left"), // 线性探4左
+    LINEAR4_RIGHT("linear_value_temp4right"),// 线性探4右
+
+    // 非线性值
+    NONLINEAR1_LEFT("nonlinear_value_temp1left"),// 非线性探1左
+    NONLINEAR1_RIGHT("nonlinear_value_temp1right"),// 非线性探1右
+    NONLINEAR2_LEFT("nonlinear_value_temp2left"),// 非线性探2左
+    NONLINEAR2_RIGHT("nonlinear_value_temp2right"),// 非线性探2右
+    NONLINEAR3_LEFT("nonlinear_value_temp3left"),// 非线性探3左
+    NONLINEAR3_RIGHT("nonlinear_value_temp3right"),// 非线性探3右
+    NONLINEAR4_LEFT("nonlinear_value_temp4left"),// 非线性探4左
+    NONLINEAR4_RIGHT("nonlinear_value_temp4right"),// 非线性探4右
+
+    // 板温
+    PLATE_INNER_LEFT("plate_temp_inner_left"),// 板温内左
+    PLATE_INNER_RIGHT("plate_temp_inner_right"),// 板温内右
+    PLATE_OUTER_LEFT("plate_temp_outer_left"),// 板温外左
+    PLATE_OUTER_RIGHT("plate_temp_outer_right");// 板温外右
+
+    public static final int COUNT = values().length;
+
+    // 轴位 3-6
+    private static final int FIRST_AXLE = 3;
+    private static final int AXLE_COUNT = 4;
+
+    private static final Channel[] VALUES = values();
+
+    private final String columnName;
+
+    Channel(String columnName) {
+        this.columnName = columnName;
+    }
+
+    /**
+     * 数据库中的列名
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 按下标查找通道，下标即 ordinal()
+     */
+    public static Channel of(int index) {
+        return VALUES[index];
+    }
+
+    /**
+     * 车上测量温度
+     * @param axle 轴位 3-6
+     */
+    public static Channel car(boolean left, int axle) {
+        return VALUES[CAR_LEFT_3.ordinal() + sideOffset(left) + axleOffset(axle)];
+    }
+
+    /**
+     * 地面探测温度，每个探头占 左3-6、右3-6 共 8 个通道
+     * @param probeIndex 探头序号 1-4
+     * @param axle 轴位 3-6
+     */
+    public static Channel ground(int probeIndex, boolean left, int axle) {
+        return VALUES[GROUND1_LEFT_3.ordinal() + probeOffset(probeIndex) * AXLE_COUNT * 2 + sideOffset(left) + axleOffset(axle)];
+    }
+
+    /**
+     * 线性值
+     */
+    public static Channel linear(int probeIndex, boolean left) {
+        return VALUES[LINEAR1_LEFT.ordinal() + probeOffset(probeIndex) * 2 + (left ? 0 : 1)];
+    }
+
+    /**
+     * 非线性值
+     */
+    public static Channel nonlinear(int probeIndex, boolean left) {
+        return VALUES[NONLINEAR1_LEFT.ordinal() + probeOffset(probeIndex) * 2 + (left ? 0 : 1)];
+    }
+
+    /**
+     * 板温
+     * @param inner true 为内侧，false 为外侧
+     */
+    public static Channel plate(boolean inner, boolean left) {
+        return VALUES[PLATE_INNER_LEFT.ordinal() + (inner ? 0 : 2) + (left ? 0 : 1)];
+    }
+
+    private static int sideOffset(boolean left) {
+        return left ? 0 : AXLE_COUNT;
+    }
+
+    private static int axleOffset(int axle) {
+        if (axle < FIRST_AXLE || axle >= FIRST_AXLE + AXLE_COUNT) {
+            throw new IllegalArgumentException("轴位必须在3-6之间: " + axle);
+        }
+        return axle - FIRST_AXLE;
+    }
+
+    private static int probeOffset(int probeIndex) {
+        if (probeIndex < 1 || probeIndex > 4) {
+            throw new IllegalArgumentException("探头序号必须在1-4之间: " + probeIndex);
+        }
+        return probeIndex - 1;
+    }
+}
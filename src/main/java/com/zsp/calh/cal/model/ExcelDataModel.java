@@ -1,28 +1,29 @@
 package com.zsp.calh.cal.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 // 导入TemperatureData类
 import com.zsp.calh.cal.model.TemperatureData;
 
+/**
+ * Excel 数据模型。表头和数据行作为一个只读快照整体发布，
+ * 设置时复制一次，读取时直接返回只读列表，不再每次复制
+ */
 public class ExcelDataModel {
     // 单例模式，用于在不同Controller之间共享数据
     private static ExcelDataModel instance;
     
-    // 存储Excel数据的二维列表
-    private List<List<String>> excelData;
+    // Excel 表头和数据行的只读快照
+    private volatile ExcelSnapshot excelSnapshot;
     
-    // 存储Excel表头信息
-    private List<String> headers;
-    
-    // 存储映射后的TemperatureData对象列表
-    private List<TemperatureData> temperatureDataList;
+    // 映射后的TemperatureData对象列表，只读快照
+    private volatile List<TemperatureData> temperatureDataList;
     
     private ExcelDataModel() {
-        this.excelData = new ArrayList<>();
-        this.headers = new ArrayList<>();
-        this.temperatureDataList = new ArrayList<>();
+        this.excelSnapshot = ExcelSnapshot.EMPTY;
+        this.temperatureDataList = Collections.emptyList();
     }
     
     // 获取单例实例
@@ -35,46 +36,46 @@ public class ExcelDataModel {
     
     // 设置Excel数据
     public void setExcelData(List<List<String>> data) {
-        this.excelData.clear();
-        this.headers.clear();
-        
-        if (data != null && !data.isEmpty()) {
-            // 假设第一行是表头
-            this.headers.addAll(data.get(0));
-            
-            // 其余行是数据
-            for (int i = 1; i < data.size(); i++) {
-                this.excelData.add(new ArrayList<>(data.get(i)));
-            }
+        if (data == null || data.isEmpty()) {
+            this.excelSnapshot = ExcelSnapshot.EMPTY;
+            return;
         }
+
+        // 假设第一行是表头，其余行是数据
+        List<String> headers = readOnlyCopy(data.get(0));
+        List<List<String>> rows = new ArrayList<>(data.size() - 1);
+        for (int i = 1; i < data.size(); i++) {
+            rows.add(readOnlyCopy(data.get(i)));
+        }
+        this.excelSnapshot = new ExcelSnapshot(headers, Collections.unmodifiableList(rows));
     }
     
-    // 获取Excel数据
+    // 获取Excel数据（只读）
     public List<List<String>> getExcelData() {
-        return new ArrayList<>(excelData);
+        return excelSnapshot.rows;
     }
     
-    // 获取表头
+    // 获取表头（只读）
     public List<String> getHeaders() {
-        return new ArrayList<>(headers);
+        return excelSnapshot.headers;
     }
     
     // 设置TemperatureData对象列表
     public void setTemperatureDataList(List<TemperatureData> dataList) {
-        this.temperatureDataList.clear();
-        if (dataList != null) {
-            this.temperatureDataList.addAll(dataList);
-        }
+        this.temperatureDataList = dataList == null ? Collections.emptyList() : readOnlyCopy(dataList);
     }
     
-    // 获取TemperatureData对象列表
+    // 获取TemperatureData对象列表（只读）
     public List<TemperatureData> getTemperatureDataList() {
-        return new ArrayList<>(temperatureDataList);
+        return temperatureDataList;
     }
     
     // 根据查询条件过滤数据
     public List<List<String>> filterData(String columnName, String keyword) {
         List<List<String>> filteredData = new ArrayList<>();
+        // 整个过滤过程使用同一个快照
+        ExcelSnapshot snapshot = excelSnapshot;
+        List<String> headers = snapshot.headers;
         
         // 查找列索引
         int columnIndex = -1;
@@ -87,7 +88,7 @@ public class ExcelDataModel {
         
         // 如果找到了对应的列
         if (columnIndex != -1) {
-            for (List<String> row : excelData) {
+            for (List<String> row : snapshot.rows) {
                 if (row.size() > columnIndex && row.get(columnIndex).contains(keyword)) {
                     filteredData.add(row);
                 }
@@ -96,4 +97,22 @@ public class ExcelDataModel {
         
         return filteredData;
     }
-}
\ No newline at end of file
+
+    // 允许 null 元素的只读副本（List.copyOf 不接受 null）
+    private static <T> List<T> readOnlyCopy(List<T> list) {
+        return Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    // 表头和数据行一起发布，读取方不会看到新表头配旧数据
+    private static final class ExcelSnapshot {
+        static final ExcelSnapshot EMPTY = new ExcelSnapshot(Collections.emptyList(), Collections.emptyList());
+
+        final List<String> headers;
+        final List<List<String>> rows;
+
+        ExcelSnapshot(List<String> headers, List<List<String>> rows) {
+            this.headers = headers;
+            this.rows = rows;
+        }
+    }
+}
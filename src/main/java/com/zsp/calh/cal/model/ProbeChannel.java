@@ -0,0 +1,84 @@
+package com.zsp.calh.cal.model;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 探头通道访问表：按 探头(1-4) × 方位(左/右) 预先算好 TemperatureData 中各温度值的通道，
+ * 计算内循环直接按通道读取数组，不再通过方法名反射取值
+ */
+public enum ProbeChannel {
+    PROBE1_LEFT(1, true),
+    PROBE1_RIGHT(1, false),
+    PROBE2_LEFT(2, true),
+    PROBE2_RIGHT(2, false),
+    PROBE3_LEFT(3, true),
+    PROBE3_RIGHT(3, false),
+    PROBE4_LEFT(4, true),
+    PROBE4_RIGHT(4, false);
+
+    // 轴位 3-6，数组下标 = 轴位 - FIRST_AXLE
+    public static final int FIRST_AXLE = 3;
+    public static final int AXLE_COUNT = 4;
+
+    private final int probeIndex;
+    private final boolean left;
+    private final Channel[] groundAxles = new Channel[4];
+    private final Channel[] carAxles = new Channel[4];
+    private final Channel linear;
+    private final Channel nonlinear;
+
+    ProbeChannel(int probeIndex, boolean left) {
+        this.probeIndex = probeIndex;
+        this.left = left;
+        for (int i = 0; i < 4; i++) {
+            groundAxles[i] = Channel.ground(probeIndex, left, 3 + i);
+            carAxles[i] = Channel.car(left, 3 + i);
+        }
+        this.linear = Channel.linear(probeIndex, left);
+        this.nonlinear = Channel.nonlinear(probeIndex, left);
+    }
+
+    /**
+     * 根据探头序号(1-4)和方位查找通道
+     */
+    public static ProbeChannel of(int probeIndex, boolean isLeft) {
+        if (probeIndex < 1 || probeIndex > 4) {
+            throw new IllegalArgumentException("探头序号必须在1-4之间: " + probeIndex);
+        }
+        return values()[(probeIndex - 1) * 2 + (isLeft ? 0 : 1)];
+    }
+
+    public int getProbeIndex() { return probeIndex; }
+    public boolean isLeft() { return left; }
+    public String getSideLabel() { return left ? "左" : "右"; }
+
+    // 界面显示的名称，如 "地面探头1 左"
+    public String getLabel() {
+        return "地面探头" + probeIndex + " " + getSideLabel();
+    }
+
+    public Channel getGroundChannel(int axle) { return groundAxles[axle - FIRST_AXLE]; }
+    public Channel getCarChannel(int axle) { return carAxles[axle - FIRST_AXLE]; }
+    public Channel getLinearChannel() { return linear; }
+    public Channel getNonlinearChannel() { return nonlinear; }
+
+    // 地面探测温度 A
+    public double ground(TemperatureData data, int axle) {
+        return data.get(groundAxles[axle - FIRST_AXLE]);
+    }
+
+    // 车上测量温度 Z（只与方位有关）
+    public double car(TemperatureData data, int axle) {
+        return data.get(carAxles[axle - FIRST_AXLE]);
+    }
+
+    // 线性值 C
+    public double linear(TemperatureData data) {
+        return data.get(linear);
+    }
+
+    // 非线性值 D
+    public double nonlinear(TemperatureData data) {
+        return data.get(nonlinear);
+    }
+}
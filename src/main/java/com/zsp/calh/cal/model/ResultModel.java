@@ -0,0 +1,45 @@
+package com.zsp.calh.cal.model;
+
+/**
+ * 计算结果模型（用于 TableView），每行数据输出 Top-K 个 (F, G) 组合
+ */
+public class ResultModel {
+    private String rowInfo;
+    private int rank;
+    private double F;
+    private double G;
+    private double stdDev;
+    private double diff3;
+    private double diff4;
+    private double diff5;
+    private double diff6;
+    private double targetDiff; // 内部排序用
+    private ProbeChannel channel; // 结果所属的探头/方位
+    private String remark;
+
+    // Getters and Setters
+    public String getRowInfo() { return rowInfo; }
+    public void setRowInfo(String rowInfo) { this.rowInfo = rowInfo; }
+    public int getRank() { return rank; }
+    public void setRank(int rank) { this.rank = rank; }
+    public double getF() { return F; }
+    public void setF(double f) { F = f; }
+    public double getG() { return G; }
+    public void setG(double g) { G = g; }
+    public double getStdDev() { return stdDev; }
+    public void setStdDev(double stdDev) { this.stdDev = stdDev; }
+    public double getDiff3() { return diff3; }
+    public void setDiff3(double diff3) { this.diff3 = diff3; }
+    public double getDiff4() { return diff4; }
+    public void setDiff4(double diff4) { this.diff4 = diff4; }
+    public double getDiff5() { return diff5; }
+    public void setDiff5(double diff5) { this.diff5 = diff5; }
+    public double getDiff6() { return diff6; }
+    public void setDiff6(double diff6) { this.diff6 = diff6; }
+    public double getTargetDiff() { return targetDiff; }
+    public void setTargetDiff(double targetDiff) { this.targetDiff = targetDiff; }
+    public ProbeChannel getChannel() { return channel; }
+    public void setChannel(ProbeChannel channel) { this.channel = channel; }
+    public String getRemark() { return remark; }
+    public void setRemark(String remark) { this.remark = remark; }
+}
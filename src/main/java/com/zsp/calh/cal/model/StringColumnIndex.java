@@ -0,0 +1,202 @@
+package com.zsp.calh.cal.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个字符串列的字典编码和索引，随行追加增量维护：
+ * <ul>
+ *     <li>取值 -> 编码 的哈希表，编码按首次出现的顺序分配，null 也作为一个取值</li>
+ *     <li>编码 -> 行号 的倒排表（行号升序）</li>
+ *     <li>单字和二元组 -> 编码 的倒排表，用于子串匹配，第一次子串查询时才建立</li>
+ * </ul>
+ * 子串查询先用 n-gram 求交得到候选取值，再用 contains 校验，不需要扫描所有行
+ */
+class StringColumnIndex {
+    private static final int GRAM_LENGTH = 2;
+    private static final int[] NO_ROWS = new int[0];
+
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<IntList> postings = new ArrayList<>();
+    // 长度为 1 和 GRAM_LENGTH 的片段 -> 包含它的取值编码（升序），未建立时为 null
+    private volatile Map<String, IntList> grams;
+
+    /**
+     * 追加一行，返回该行取值的编码
+     */
+    int add(String value, int row) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+            postings.add(new IntList());
+            Map<String, IntList> built = grams;
+            if (built != null) {
+                indexGrams(built, value, code);
+            }
+        }
+        postings.get(code).add(row);
+        return code;
+    }
+
+    String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * 所有不同的取值，按首次出现的顺序
+     */
+    List<String> values() {
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * 精确匹配的编码（哈希表查找），不存在时返回 -1
+     */
+    int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * 某个编码对应的全部行号（升序）
+     */
+    int[] rows(int code) {
+        return code < 0 ? NO_ROWS : postings.get(code).toArray();
+    }
+
+    /**
+     * 包含 keyword 的取值编码（升序），keyword 必须非空；null 取值不匹配
+     */
+    int[] codesContaining(String keyword) {
+        Map<String, IntList> grams = gramIndex();
+        IntList candidates;
+        if (keyword.length() < GRAM_LENGTH) {
+            candidates = grams.get(keyword);
+            return candidates == null ? NO_ROWS : candidates.toArray();
+        }
+
+        // 取最短的二元组倒排表作为起点，逐个求交
+        int[] result = null;
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+            IntList list = grams.get(keyword.substring(i, i + GRAM_LENGTH));
+            if (list == null) return NO_ROWS;
+            if (result == null || list.size < result.length) {
+                result = list.toArray();
+            }
+        }
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length() && result.length > 0; i++) {
+            result = intersect(result, grams.get(keyword.substring(i, i + GRAM_LENGTH)));
+        }
+
+        // 二元组都出现不代表连续出现，用 contains 校验
+        int count = 0;
+        int[] verified = new int[result.length];
+        for (int code : result) {
+            if (values.get(code).contains(keyword)) verified[count++] = code;
+        }
+        return Arrays.copyOf(verified, count);
+    }
+
+    /**
+     * 合并多个编码的行号，结果升序
+     */
+    int[] rowsOf(int[] matchedCodes) {
+        if (matchedCodes.length == 1) return rows(matchedCodes[0]);
+        int total = 0;
+        for (int code : matchedCodes) total += postings.get(code).size;
+        int[] result = new int[total];
+        int pos = 0;
+        for (int code : matchedCodes) {
+            IntList list = postings.get(code);
+            System.arraycopy(list.data, 0, result, pos, list.size);
+            pos += list.size;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 多个编码的行数合计
+     */
+    int rowCount(int[] matchedCodes) {
+        int total = 0;
+        for (int code : matchedCodes) total += postings.get(code).size;
+        return total;
+    }
+
+    // 导入数据时不一定会按子串查询，片段索引推迟到第一次查询时建立；多个线程同时查询时只建立一次
+    private Map<String, IntList> gramIndex() {
+        Map<String, IntList> built = grams;
+        if (built == null) {
+            synchronized (this) {
+                built = grams;
+                if (built == null) {
+                    built = new HashMap<>();
+                    for (int code = 0; code < values.size(); code++) {
+                        indexGrams(built, values.get(code), code);
+                    }
+                    grams = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    private static void indexGrams(Map<String, IntList> grams, String value, int code) {
+        if (value == null) return;
+        for (int len = 1; len <= GRAM_LENGTH; len++) {
+            for (int i = 0; i + len <= value.length(); i++) {
+                IntList list = grams.computeIfAbsent(value.substring(i, i + len), k -> new IntList());
+                // 同一个取值里重复出现的片段只记一次
+                if (list.size == 0 || list.data[list.size - 1] != code) {
+                    list.add(code);
+                }
+            }
+        }
+    }
+
+    private static int[] intersect(int[] sorted, IntList other) {
+        int[] result = new int[Math.min(sorted.length, other.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < sorted.length && j < other.size) {
+            int a = sorted[i];
+            int b = other.data[j];
+            if (a == b) {
+                result[count++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // 可增长的 int 数组
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
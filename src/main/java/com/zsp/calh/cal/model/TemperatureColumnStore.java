@@ -0,0 +1,208 @@
+package com.zsp.calh.cal.model;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按列存放的温度数据（只读）：每个 Channel 一个 double[]，线别和设备名称字典编码为 int，
+ * 日期压缩为闰年中的第几天 (short)。线别和设备名称按取值建立哈希索引（findRowsExact），
+ * 子串匹配的 n-gram 索引在第一次 findRows 时建立。
+ * 每行只占约 60×8 + 10 字节，按通道统计（sum/mean/copyColumn）是对一个 double[] 的连续扫描；
+ * 原始数据行由 TemperatureDataModel 保存，这里不再还原行对象
+ */
+public class TemperatureColumnStore {
+    // 日期按闰年换算，2月29日也能表示；0 表示没有日期
+    private static final int LEAP_YEAR = 2000;
+    private static final short NO_DATE = 0;
+
+    public static final TemperatureColumnStore EMPTY = of(Collections.emptyList());
+
+    private final int size;
+    private final double[][] columns;
+    private final int[] lineCodes;
+    private final int[] deviceCodes;
+    private final short[] days;
+    private final StringColumnIndex lineIndex;
+    private final StringColumnIndex deviceIndex;
+
+    private TemperatureColumnStore(int size, double[][] columns, int[] lineCodes, int[] deviceCodes,
+                                   short[] days, StringColumnIndex lineIndex, StringColumnIndex deviceIndex) {
+        this.size = size;
+        this.columns = columns;
+        this.lineCodes = lineCodes;
+        this.deviceCodes = deviceCodes;
+        this.days = days;
+        this.lineIndex = lineIndex;
+        this.deviceIndex = deviceIndex;
+    }
+
+    /**
+     * 由行数据构建列存储，行顺序保持不变
+     */
+    public static TemperatureColumnStore of(List<TemperatureData> rows) {
+        int size = rows.size();
+        double[][] columns = new double[Channel.COUNT][size];
+        int[] lineCodes = new int[size];
+        int[] deviceCodes = new int[size];
+        short[] days = new short[size];
+        StringColumnIndex lineIndex = new StringColumnIndex();
+        StringColumnIndex deviceIndex = new StringColumnIndex();
+
+        double[] rowValues = new double[Channel.COUNT];
+        for (int row = 0; row < size; row++) {
+            TemperatureData data = rows.get(row);
+            data.copyValuesTo(rowValues, 0);
+            for (int c = 0; c < Channel.COUNT; c++) {
+                columns[c][row] = rowValues[c];
+            }
+            lineCodes[row] = lineIndex.add(data.getLineNumber(), row);
+            deviceCodes[row] = deviceIndex.add(data.getDeviceName(), row);
+            days[row] = encodeDate(data.getDate());
+        }
+        return new TemperatureColumnStore(size, columns, lineCodes, deviceCodes, days, lineIndex, deviceIndex);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double getValue(int row, Channel channel) {
+        return columns[channel.ordinal()][row];
+    }
+
+    public String getLineNumber(int row) {
+        return lineIndex.decode(lineCodes[row]);
+    }
+
+    public String getDeviceName(int row) {
+        return deviceIndex.decode(deviceCodes[row]);
+    }
+
+    public MonthDay getDate(int row) {
+        return decodeDate(days[row]);
+    }
+
+    /**
+     * 按线别和设备名称的子串筛选，返回满足条件的行号（升序）。
+     * 关键字为 null 或空字符串时不参与筛选；取值为 null 的行不匹配非空关键字。
+     * 通过索引查找，耗时与结果行数相关，与总行数无关
+     */
+    public int[] findRows(String lineKeyword, String deviceKeyword) {
+        int[] lineMatch = isBlank(lineKeyword) ? null : lineIndex.codesContaining(lineKeyword);
+        int[] deviceMatch = isBlank(deviceKeyword) ? null : deviceIndex.codesContaining(deviceKeyword);
+        return combine(lineMatch, deviceMatch);
+    }
+
+    /**
+     * 按日期、线别和设备名称精确筛选（与 SQL 的 = 条件相同），返回满足条件的行号（升序）。
+     * date 为 null、线别或设备名称为 null 或空字符串时不参与筛选；取值为 null 的行不匹配。
+     * 线别和设备名称通过哈希索引查找，日期在候选行上逐行比较
+     */
+    public int[] findRowsExact(MonthDay date, String lineNumber, String deviceName) {
+        int[] lineMatch = isBlank(lineNumber) ? null : exactCodes(lineIndex, lineNumber);
+        int[] deviceMatch = isBlank(deviceName) ? null : exactCodes(deviceIndex, deviceName);
+        int[] rows = combine(lineMatch, deviceMatch);
+        if (date == null) return rows;
+
+        short day = encodeDate(date);
+        int count = 0;
+        for (int row : rows) {
+            if (days[row] == day) rows[count++] = row;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * 所有不同的线别，按首次出现的顺序
+     */
+    public List<String> getDistinctLineNumbers() {
+        return lineIndex.values();
+    }
+
+    /**
+     * 所有不同的设备名称，按首次出现的顺序
+     */
+    public List<String> getDistinctDeviceNames() {
+        return deviceIndex.values();
+    }
+
+    /**
+     * 指定通道在给定行上的和，按 rows 的顺序累加
+     */
+    public double sum(Channel channel, int[] rows) {
+        double[] column = columns[channel.ordinal()];
+        double sum = 0;
+        for (int row : rows) {
+            sum += column[row];
+        }
+        return sum;
+    }
+
+    /**
+     * 指定通道在给定行上的平均值，没有行时返回 NaN
+     */
+    public double mean(Channel channel, int[] rows) {
+        return rows.length == 0 ? Double.NaN : sum(channel, rows) / rows.length;
+    }
+
+    /**
+     * 将指定通道在给定行上的取值依次复制到 dest 中（从 offset 开始），用于批量计算
+     */
+    public void copyColumn(Channel channel, int[] rows, double[] dest, int offset) {
+        double[] column = columns[channel.ordinal()];
+        for (int i = 0; i < rows.length; i++) {
+            dest[offset + i] = column[rows[i]];
+        }
+    }
+
+    // 合并两列的匹配结果：从行数少的一侧出发，逐行检查另一侧的编码
+    private int[] combine(int[] lineMatch, int[] deviceMatch) {
+        if (lineMatch == null && deviceMatch == null) {
+            int[] all = new int[size];
+            for (int row = 0; row < size; row++) all[row] = row;
+            return all;
+        }
+        if (deviceMatch == null) return lineIndex.rowsOf(lineMatch);
+        if (lineMatch == null) return deviceIndex.rowsOf(deviceMatch);
+
+        if (lineIndex.rowCount(lineMatch) <= deviceIndex.rowCount(deviceMatch)) {
+            return retain(lineIndex.rowsOf(lineMatch), deviceCodes, deviceMatch);
+        }
+        return retain(deviceIndex.rowsOf(deviceMatch), lineCodes, lineMatch);
+    }
+
+    private static int[] retain(int[] rows, int[] codesByRow, int[] sortedCodes) {
+        int[] result = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            if (Arrays.binarySearch(sortedCodes, codesByRow[row]) >= 0) result[count++] = row;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] exactCodes(StringColumnIndex index, String value) {
+        int code = index.codeOf(value);
+        return code < 0 ? new int[0] : new int[]{code};
+    }
+
+    private static boolean isBlank(String keyword) {
+        return keyword == null || keyword.isEmpty();
+    }
+
+    private static short encodeDate(MonthDay date) {
+        if (date == null) return NO_DATE;
+        return (short) date.atYear(LEAP_YEAR).getDayOfYear();
+    }
+
+    private static MonthDay decodeDate(short day) {
+        if (day == NO_DATE) return null;
+        return MonthDay.from(LocalDate.ofYearDay(LEAP_YEAR, day));
+    }
+}
@@ -1,11 +1,17 @@
 package com.zsp.calh.cal.model;
 
 // 首先修改导入语句
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import java.time.MonthDay;
+import java.util.Arrays;
 
 
-
+/**
+ * 一行温度数据。60 个温度值存放在一个 double 数组中，下标为 Channel.ordinal()，
+ * 原有按字段命名的 getter/setter 只是这个数组上的视图
+ */
 @Data
 public class TemperatureData {
     private Long id;              // 唯一标识符
@@ -13,79 +19,185 @@ public class TemperatureData {
     private String deviceName;    // 设备名称
     private MonthDay date;        // 日期（只包含月和日）
 
+    // 全部温度值，按 Channel 顺序排列
+    @Getter(AccessLevel.NONE)
+    private final double[] values = new double[Channel.COUNT];
+
+    /**
+     * 按通道读取温度值
+     */
+    public double get(Channel channel) {
+        return values[channel.ordinal()];
+    }
+
+    /**
+     * 按通道设置温度值
+     */
+    public void set(Channel channel, double value) {
+        values[channel.ordinal()] = value;
+    }
+
+    /**
+     * 从另一行整体复制全部温度值
+     */
+    public void copyValuesFrom(TemperatureData other) {
+        System.arraycopy(other.values, 0, values, 0, Channel.COUNT);
+    }
+
+    /**
+     * 将全部温度值按 Channel 顺序复制到 dest 中从 offset 开始的位置
+     */
+    public void copyValuesTo(double[] dest, int offset) {
+        System.arraycopy(values, 0, dest, offset, Channel.COUNT);
+    }
+
+    /**
+     * 用 src 中从 offset 开始的 Channel.COUNT 个值覆盖全部温度值
+     */
+    public void copyValuesFrom(double[] src, int offset) {
+        System.arraycopy(src, offset, values, 0, Channel.COUNT);
+    }
+
+    /**
+     * 全部温度值的副本
+     */
+    public double[] toValueArray() {
+        return Arrays.copyOf(values, Channel.COUNT);
+    }
+
     // 车上测量温度
-    private double carTempLeft3;    // 车上测量温度左3
-    private double carTempLeft4;    // 车上测量温度左4
-    private double carTempLeft5;    // 车上测量温度左5
-    private double carTempLeft6;    // 车上测量温度左6
-    private double carTempRight3;   // 车上测量温度右3
-    private double carTempRight4;   // 车上测量温度右4
-    private double carTempRight5;   // 车上测量温度右5
-    private double carTempRight6;   // 车上测量温度右6
+    public double getCarTempLeft3() { return values[Channel.CAR_LEFT_3.ordinal()]; }
+    public void setCarTempLeft3(double value) { values[Channel.CAR_LEFT_3.ordinal()] = value; }
+    public double getCarTempLeft4() { return values[Channel.CAR_LEFT_4.ordinal()]; }
+    public void setCarTempLeft4(double value) { values[Channel.CAR_LEFT_4.ordinal()] = value; }
+    public double getCarTempLeft5() { return values[Channel.CAR_LEFT_5.ordinal()]; }
+    public void setCarTempLeft5(double value) { values[Channel.CAR_LEFT_5.ordinal()] = value; }
+    public double getCarTempLeft6() { return values[Channel.CAR_LEFT_6.ordinal()]; }
+    public void setCarTempLeft6(double value) { values[Channel.CAR_LEFT_6.ordinal()] = value; }
+    public double getCarTempRight3() { return values[Channel.CAR_RIGHT_3.ordinal()]; }
+    public void setCarTempRight3(double value) { values[Channel.CAR_RIGHT_3.ordinal()] = value; }
+    public double getCarTempRight4() { return values[Channel.CAR_RIGHT_4.ordinal()]; }
+    public void setCarTempRight4(double value) { values[Channel.CAR_RIGHT_4.ordinal()] = value; }
+    public double getCarTempRight5() { return values[Channel.CAR_RIGHT_5.ordinal()]; }
+    public void setCarTempRight5(double value) { values[Channel.CAR_RIGHT_5.ordinal()] = value; }
+    public double getCarTempRight6() { return values[Channel.CAR_RIGHT_6.ordinal()]; }
+    public void setCarTempRight6(double value) { values[Channel.CAR_RIGHT_6.ordinal()] = value; }
 
     // 地面探测温度1
-    private double groundTemp1Left3;    // 地面探测温度1左3
-    private double groundTemp1Left4;    // 地面探测温度1左4
-    private double groundTemp1Left5;    // 地面探测温度1左5
-    private double groundTemp1Left6;    // 地面探测温度1左6
-    private double groundTemp1Right3;   // 地面探测温度1右3
-    private double groundTemp1Right4;   // 地面探测温度1右4
-    private double groundTemp1Right5;   // 地面探测温度1右5
-    private double groundTemp1Right6;   // 地面探测温度1右6
+    public double getGroundTemp1Left3() { return values[Channel.GROUND1_LEFT_3.ordinal()]; }
+    public void setGroundTemp1Left3(double value) { values[Channel.GROUND1_LEFT_3.ordinal()] = value; }
+    public double getGroundTemp1Left4() { return values[Channel.GROUND1_LEFT_4.ordinal()]; }
+    public void setGroundTemp1Left4(double value) { values[Channel.GROUND1_LEFT_4.ordinal()] = value; }
+    public double getGroundTemp1Left5() { return values[Channel.GROUND1_LEFT_5.ordinal()]; }
+    public void setGroundTemp1Left5(double value) { values[Channel.GROUND1_LEFT_5.ordinal()] = value; }
+    public double getGroundTemp1Left6() { return values[Channel.GROUND1_LEFT_6.ordinal()]; }
+    public void setGroundTemp1Left6(double value) { values[Channel.GROUND1_LEFT_6.ordinal()] = value; }
+    public double getGroundTemp1Right3() { return values[Channel.GROUND1_RIGHT_3.ordinal()]; }
+    public void setGroundTemp1Right3(double value) { values[Channel.GROUND1_RIGHT_3.ordinal()] = value; }
+    public double getGroundTemp1Right4() { return values[Channel.GROUND1_RIGHT_4.ordinal()]; }
+    public void setGroundTemp1Right4(double value) { values[Channel.GROUND1_RIGHT_4.ordinal()] = value; }
+    public double getGroundTemp1Right5() { return values[Channel.GROUND1_RIGHT_5.ordinal()]; }
+    public void setGroundTemp1Right5(double value) { values[Channel.GROUND1_RIGHT_5.ordinal()] = value; }
+    public double getGroundTemp1Right6() { return values[Channel.GROUND1_RIGHT_6.ordinal()]; }
+    public void setGroundTemp1Right6(double value) { values[Channel.GROUND1_RIGHT_6.ordinal()] = value; }
 
     // 地面探测温度2（内探）
-    private double groundTemp2Left3;    // 地面探测温度2左3（内探）
-    private double groundTemp2Left4;    // 地面探测温度2左4（内探）
-    private double groundTemp2Left5;    // 地面探测温度2左5（内探）
-    private double groundTemp2Left6;    // 地面探测温度2左6（内探）
-    private double groundTemp2Right3;   // 地面探测温度2右3（内探）
-    private double groundTemp2Right4;   // 地面探测温度2右4（内探）
-    private double groundTemp2Right5;   // 地面探测温度2右5（内探）
-    private double groundTemp2Right6;   // 地面探测温度2右6（内探）
+    public double getGroundTemp2Left3() { return values[Channel.GROUND2_LEFT_3.ordinal()]; }
+    public void setGroundTemp2Left3(double value) { values[Channel.GROUND2_LEFT_3.ordinal()] = value; }
+    public double getGroundTemp2Left4() { return values[Channel.GROUND2_LEFT_4.ordinal()]; }
+    public void setGroundTemp2Left4(double value) { values[Channel.GROUND2_LEFT_4.ordinal()] = value; }
+    public double getGroundTemp2Left5() { return values[Channel.GROUND2_LEFT_5.ordinal()]; }
+    public void setGroundTemp2Left5(double value) { values[Channel.GROUND2_LEFT_5.ordinal()] = value; }
+    public double getGroundTemp2Left6() { return values[Channel.GROUND2_LEFT_6.ordinal()]; }
+    public void setGroundTemp2Left6(double value) { values[Channel.GROUND2_LEFT_6.ordinal()] = value; }
+    public double getGroundTemp2Right3() { return values[Channel.GROUND2_RIGHT_3.ordinal()]; }
+    public void setGroundTemp2Right3(double value) { values[Channel.GROUND2_RIGHT_3.ordinal()] = value; }
+    public double getGroundTemp2Right4() { return values[Channel.GROUND2_RIGHT_4.ordinal()]; }
+    public void setGroundTemp2Right4(double value) { values[Channel.GROUND2_RIGHT_4.ordinal()] = value; }
+    public double getGroundTemp2Right5() { return values[Channel.GROUND2_RIGHT_5.ordinal()]; }
+    public void setGroundTemp2Right5(double value) { values[Channel.GROUND2_RIGHT_5.ordinal()] = value; }
+    public double getGroundTemp2Right6() { return values[Channel.GROUND2_RIGHT_6.ordinal()]; }
+    public void setGroundTemp2Right6(double value) { values[Channel.GROUND2_RIGHT_6.ordinal()] = value; }
 
     // 地面探测温度3
-    private double groundTemp3Left3;    // 地面探测温度3左3
-    private double groundTemp3Left4;    // 地面探测温度3左4
-    private double groundTemp3Left5;    // 地面探测温度3左5
-    private double groundTemp3Left6;    // 地面探测温度3左6
-    private double groundTemp3Right3;   // 地面探测温度3右3
-    private double groundTemp3Right4;   // 地面探测温度3右4// 地面探测温度3左6
-    private double groundTemp3Right5;   // 地面探测温度3右3
-    private double groundTemp3Right6;   // 地面探测温度3右4
+    public double getGroundTemp3Left3() { return values[Channel.GROUND3_LEFT_3.ordinal()]; }
+    public void setGroundTemp3Left3(double value) { values[Channel.GROUND3_LEFT_3.ordinal()] = value; }
+    public double getGroundTemp3Left4() { return values[Channel.GROUND3_LEFT_4.ordinal()]; }
+    public void setGroundTemp3Left4(double value) { values[Channel.GROUND3_LEFT_4.ordinal()] = value; }
+    public double getGroundTemp3Left5() { return values[Channel.GROUND3_LEFT_5.ordinal()]; }
+    public void setGroundTemp3Left5(double value) { values[Channel.GROUND3_LEFT_5.ordinal()] = value; }
+    public double getGroundTemp3Left6() { return values[Channel.GROUND3_LEFT_6.ordinal()]; }
+    public void setGroundTemp3Left6(double value) { values[Channel.GROUND3_LEFT_6.ordinal()] = value; }
+    public double getGroundTemp3Right3() { return values[Channel.GROUND3_RIGHT_3.ordinal()]; }
+    public void setGroundTemp3Right3(double value) { values[Channel.GROUND3_RIGHT_3.ordinal()] = value; }
+    public double getGroundTemp3Right4() { return values[Channel.GROUND3_RIGHT_4.ordinal()]; }
+    public void setGroundTemp3Right4(double value) { values[Channel.GROUND3_RIGHT_4.ordinal()] = value; }
+    public double getGroundTemp3Right5() { return values[Channel.GROUND3_RIGHT_5.ordinal()]; }
+    public void setGroundTemp3Right5(double value) { values[Channel.GROUND3_RIGHT_5.ordinal()] = value; }
+    public double getGroundTemp3Right6() { return values[Channel.GROUND3_RIGHT_6.ordinal()]; }
+    public void setGroundTemp3Right6(double value) { values[Channel.GROUND3_RIGHT_6.ordinal()] = value; }
 
     // 地面探测温度4（外探）
-    private double groundTemp4Left3;    // 地面探测温度4左3（外探）
-    private double groundTemp4Left4;    // 地面探测温度4左4（外探）
-    private double groundTemp4Left5;    // 地面探测温度4左5（外探）
-    private double groundTemp4Left6;    // 地面探测温度4左6（外探）
-    private double groundTemp4Right3;   // 地面探测温度4右3（外探）
-    private double groundTemp4Right4;   // 地面探测温度4右4（外探）
-    private double groundTemp4Right5;   // 地面探测温度4右5（外探）
-    private double groundTemp4Right6;   // 地面探测温度4右6（外探）
-
-    // 线性
-    private double linearValueTemp1left;// 线性探1左
-    private double linearValueTemp1right;// 线性探1右
-    private double linearValueTemp2left;// 线性探2左
-    private double linearValueTemp2right;// 线性探2右
-    private double linearValueTemp3left;// 线性探3左
-    private double linearValueTemp3right;// 线性探3右
-    private double linearValueTemp4left;// 线性探4左
-    private double linearValueTemp4right;// 线性探4右
-
-    // 非线性
-    private double nonlinearValueTemp1left;// 非线性探1左
-    private double nonlinearValueTemp1right;// 非线性探1右
-    private double nonlinearValueTemp2left;// 非线性探2左
-    private double nonlinearValueTemp2right;// 非线性探2右
-    private double nonlinearValueTemp3left;// 非线性探3左
-    private double nonlinearValueTemp3right;// 非线性探3右
-    private double nonlinearValueTemp4left;// 非线性探4左
-    private double nonlinearValueTemp4right;// 非线性探4右
-
-    // 板温字段
-    private double plateTempInnerLeft;  // 板温内左
-    private double plateTempInnerRight; // 板温内右
-    private double plateTempOuterLeft;  // 板温外左
-    private double plateTempOuterRight; // 板温外右
-}
\ No newline at end of file
+    public double getGroundTemp4Left3() { return values[Channel.GROUND4_LEFT_3.ordinal()]; }
+    public void setGroundTemp4Left3(double value) { values[Channel.GROUND4_LEFT_3.ordinal()] = value; }
+    public double getGroundTemp4Left4() { return values[Channel.GROUND4_LEFT_4.ordinal()]; }
+    public void setGroundTemp4Left4(double value) { values[Channel.GROUND4_LEFT_4.ordinal()] = value; }
+    public double getGroundTemp4Left5() { return values[Channel.GROUND4_LEFT_5.ordinal()]; }
+    public void setGroundTemp4Left5(double value) { values[Channel.GROUND4_LEFT_5.ordinal()] = value; }
+    public double getGroundTemp4Left6() { return values[Channel.GROUND4_LEFT_6.ordinal()]; }
+    public void setGroundTemp4Left6(double value) { values[Channel.GROUND4_LEFT_6.ordinal()] = value; }
+    public double getGroundTemp4Right3() { return values[Channel.GROUND4_RIGHT_3.ordinal()]; }
+    public void setGroundTemp4Right3(double value) { values[Channel.GROUND4_RIGHT_3.ordinal()] = value; }
+    public double getGroundTemp4Right4() { return values[Channel.GROUND4_RIGHT_4.ordinal()]; }
+    public void setGroundTemp4Right4(double value) { values[Channel.GROUND4_RIGHT_4.ordinal()] = value; }
+    public double getGroundTemp4Right5() { return values[Channel.GROUND4_RIGHT_5.ordinal()]; }
+    public void setGroundTemp4Right5(double value) { values[Channel.GROUND4_RIGHT_5.ordinal()] = value; }
+    public double getGroundTemp4Right6() { return values[Channel.GROUND4_RIGHT_6.ordinal()]; }
+    public void setGroundTemp4Right6(double value) { values[Channel.GROUND4_RIGHT_6.ordinal()] = value; }
+
+    // 线性值
+    public double getLinearValueTemp1left() { return values[Channel.LINEAR1_LEFT.ordinal()]; }
+    public void setLinearValueTemp1left(double value) { values[Channel.LINEAR1_LEFT.ordinal()] = value; }
+    public double getLinearValueTemp1right() { return values[Channel.LINEAR1_RIGHT.ordinal()]; }
+    public void setLinearValueTemp1right(double value) { values[Channel.LINEAR1_RIGHT.ordinal()] = value; }
+    public double getLinearValueTemp2left() { return values[Channel.LINEAR2_LEFT.ordinal()]; }
+    public void setLinearValueTemp2left(double value) { values[Channel.LINEAR2_LEFT.ordinal()] = value; }
+    public double getLinearValueTemp2right() { return values[Channel.LINEAR2_RIGHT.ordinal()]; }
+    public void setLinearValueTemp2right(double value) { values[Channel.LINEAR2_RIGHT.ordinal()] = value; }
+    public double getLinearValueTemp3left() { return values[Channel.LINEAR3_LEFT.ordinal()]; }
+    public void setLinearValueTemp3left(double value) { values[Channel.LINEAR3_LEFT.ordinal()] = value; }
+    public double getLinearValueTemp3right() { return values[Channel.LINEAR3_RIGHT.ordinal()]; }
+    public void setLinearValueTemp3right(double value) { values[Channel.LINEAR3_RIGHT.ordinal()] = value; }
+    public double getLinearValueTemp4left() { return values[Channel.LINEAR4_LEFT.ordinal()]; }
+    public void setLinearValueTemp4left(double value) { values[Channel.LINEAR4_LEFT.ordinal()] = value; }
+    public double getLinearValueTemp4right() { return values[Channel.LINEAR4_RIGHT.ordinal()]; }
+    public void setLinearValueTemp4right(double value) { values[Channel.LINEAR4_RIGHT.ordinal()] = value; }
+
+    // 非线性值
+    public double getNonlinearValueTemp1left() { return values[Channel.NONLINEAR1_LEFT.ordinal()]; }
+    public void setNonlinearValueTemp1left(double value) { values[Channel.NONLINEAR1_LEFT.ordinal()] = value; }
+    public double getNonlinearValueTemp1right() { return values[Channel.NONLINEAR1_RIGHT.ordinal()]; }
+    public void setNonlinearValueTemp1right(double value) { values[Channel.NONLINEAR1_RIGHT.ordinal()] = value; }
+    public double getNonlinearValueTemp2left() { return values[Channel.NONLINEAR2_LEFT.ordinal()]; }
+    public void setNonlinearValueTemp2left(double value) { values[Channel.NONLINEAR2_LEFT.ordinal()] = value; }
+    public double getNonlinearValueTemp2right() { return values[Channel.NONLINEAR2_RIGHT.ordinal()]; }
+    public void setNonlinearValueTemp2right(double value) { values[Channel.NONLINEAR2_RIGHT.ordinal()] = value; }
+    public double getNonlinearValueTemp3left() { return values[Channel.NONLINEAR3_LEFT.ordinal()]; }
+    public void setNonlinearValueTemp3left(double value) { values[Channel.NONLINEAR3_LEFT.ordinal()] = value; }
+    public double getNonlinearValueTemp3right() { return values[Channel.NONLINEAR3_RIGHT.ordinal()]; }
+    public void setNonlinearValueTemp3right(double value) { values[Channel.NONLINEAR3_RIGHT.ordinal()] = value; }
+    public double getNonlinearValueTemp4left() { return values[Channel.NONLINEAR4_LEFT.ordinal()]; }
+    public void setNonlinearValueTemp4left(double value) { values[Channel.NONLINEAR4_LEFT.ordinal()] = value; }
+    public double getNonlinearValueTemp4right() { return values[Channel.NONLINEAR4_RIGHT.ordinal()]; }
+    public void setNonlinearValueTemp4right(double value) { values[Channel.NONLINEAR4_RIGHT.ordinal()] = value; }
+
+    // 板温
+    public double getPlateTempInnerLeft() { return values[Channel.PLATE_INNER_LEFT.ordinal()]; }
+    public void setPlateTempInnerLeft(double value) { values[Channel.PLATE_INNER_LEFT.ordinal()] = value; }
+    public double getPlateTempInnerRight() { return values[Channel.PLATE_INNER_RIGHT.ordinal()]; }
+    public void setPlateTempInnerRight(double value) { values[Channel.PLATE_INNER_RIGHT.ordinal()] = value; }
+    public double getPlateTempOuterLeft() { return values[Channel.PLATE_OUTER_LEFT.ordinal()]; }
+    public void setPlateTempOuterLeft(double value) { values[Channel.PLATE_OUTER_LEFT.ordinal()] = value; }
+    public double getPlateTempOuterRight() { return values[Channel.PLATE_OUTER_RIGHT.ordinal()]; }
+    public void setPlateTempOuterRight(double value) { values[Channel.PLATE_OUTER_RIGHT.ordinal()] = value; }
+}
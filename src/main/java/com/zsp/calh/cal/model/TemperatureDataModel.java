@@ -1,24 +1,32 @@
 package com.zsp.calh.cal.model;
 
+import java.time.MonthDay;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
- * 温度数据模型，用于在不同Controller之间共享TemperatureData对象列表
- * 采用单例模式
+ * 温度数据模型，用于在不同Controller之间共享温度数据
+ * 采用单例模式。设置数据时复制一次行列表并按列建立 TemperatureColumnStore，
+ * 两者作为一个只读快照整体发布；读取时直接返回快照中的原始数据行，不再每次复制或还原，
+ * 后台线程可以直接读取。发布之后不要再修改这些数据行。
+ * 查询界面把整张 temperature_data 读入这里，之后按条件筛选都通过列存储的索引在内存中完成，
+ * 表中数据变化（数据版本改变）后才重新读取
  */
 public class TemperatureDataModel {
+    // 数据不是从 temperature_data 整表读取时的数据版本，与任何库中的版本都不相等
+    public static final long NO_DATA_VERSION = -1;
+
     // 单例实例
     private static TemperatureDataModel instance;
-    
-    // 存储温度数据列表
-    private List<TemperatureData> temperatureDataList;
-    
+
+    // 数据行和列存储的只读快照，整体替换
+    private volatile Snapshot snapshot;
+
     private TemperatureDataModel() {
-        this.temperatureDataList = new ArrayList<>();
+        this.snapshot = Snapshot.EMPTY;
     }
-    
+
     // 获取单例实例
     public static synchronized TemperatureDataModel getInstance() {
         if (instance == null) {
@@ -26,43 +34,114 @@ public class TemperatureDataModel {
         }
         return instance;
     }
-    
-    // 设置温度数据列表
+
+    // 设置温度数据列表：先构建新的快照，再一次性发布。数据不是从库中整表读取的，数据版本记为 NO_DATA_VERSION
     public void setTemperatureDataList(List<TemperatureData> dataList) {
-        this.temperatureDataList.clear();
-        if (dataList != null) {
-            this.temperatureDataList.addAll(dataList);
-        }
+        setTemperatureDataList(dataList, NO_DATA_VERSION);
+    }
+
+    // 设置从 temperature_data 整表读取的数据，dataVersion 为读取前的 DatabaseManager.getDataVersion()
+    public void setTemperatureDataList(List<TemperatureData> dataList, long dataVersion) {
+        this.snapshot = dataList == null ? Snapshot.EMPTY
+                : new Snapshot(Collections.unmodifiableList(new ArrayList<>(dataList)), dataVersion);
+    }
+
+    // 当前数据对应的 temperature_data 数据版本，与库中的版本不同时需要重新读取
+    public long getDataVersion() {
+        return snapshot.dataVersion;
     }
-    
-    // 获取温度数据列表
+
+    // 获取温度数据列表（只读），每次返回同一组数据行
     public List<TemperatureData> getTemperatureDataList() {
-        return new ArrayList<>(temperatureDataList);
+        return snapshot.rows;
     }
-    
-    // 根据线别和设备名称过滤数据
+
+    // 根据线别和设备名称过滤数据（子串匹配，通过索引查找），返回快照中的原始数据行（只读）
     public List<TemperatureData> filterData(String lineNumber, String deviceName) {
-        return temperatureDataList.stream()
-            .filter(data -> (lineNumber == null || lineNumber.isEmpty() || 
-                    (data.getLineNumber() != null && data.getLineNumber().contains(lineNumber))))
-            .filter(data -> (deviceName == null || deviceName.isEmpty() || 
-                    (data.getDeviceName() != null && data.getDeviceName().contains(deviceName))))
-            .collect(Collectors.toList());
+        Snapshot current = snapshot;
+        return current.select(current.store.findRows(lineNumber, deviceName));
     }
-    
+
+    // 按日期、线别和设备名称精确筛选（与按条件查库的结果相同，按原顺序），通过哈希索引查找；
+    // 参数为 null 或空字符串时不参与筛选。结果可直接按通道统计
+    public Selection select(MonthDay date, String lineNumber, String deviceName) {
+        Snapshot current = snapshot;
+        int[] rowNumbers = current.store.findRowsExact(date, lineNumber, deviceName);
+        return new Selection(current.select(rowNumbers), current.store, rowNumbers);
+    }
+
     // 获取所有线别
     public List<String> getAllLineNumbers() {
-        return temperatureDataList.stream()
-            .map(TemperatureData::getLineNumber)
-            .distinct()
-            .collect(Collectors.toList());
+        return snapshot.store.getDistinctLineNumbers();
     }
-    
+
     // 获取所有设备名称
     public List<String> getAllDeviceNames() {
-        return temperatureDataList.stream()
-            .map(TemperatureData::getDeviceName)
-            .distinct()
-            .collect(Collectors.toList());
+        return snapshot.store.getDistinctDeviceNames();
+    }
+
+    /**
+     * 一次筛选的结果：数据行，以及它们在同一快照的列存储中的行号。
+     * 按通道统计时直接扫描列数组，不读取数据行对象
+     */
+    public static final class Selection {
+        public static final Selection EMPTY = new Selection(Collections.emptyList(), TemperatureColumnStore.EMPTY, new int[0]);
+
+        private final List<TemperatureData> rows;
+        private final TemperatureColumnStore store;
+        private final int[] rowNumbers;
+
+        private Selection(List<TemperatureData> rows, TemperatureColumnStore store, int[] rowNumbers) {
+            this.rows = rows;
+            this.store = store;
+            this.rowNumbers = rowNumbers;
+        }
+
+        // 筛选出的数据行（只读），按原顺序
+        public List<TemperatureData> getRows() {
+            return rows;
+        }
+
+        public int size() {
+            return rowNumbers.length;
+        }
+
+        public double sum(Channel channel) {
+            return store.sum(channel, rowNumbers);
+        }
+
+        // 没有行时返回 NaN
+        public double mean(Channel channel) {
+            return store.mean(channel, rowNumbers);
+        }
+
+        // 将指定通道的取值按行顺序复制到 dest 中（从 offset 开始）
+        public void copyColumn(Channel channel, double[] dest, int offset) {
+            store.copyColumn(channel, rowNumbers, dest, offset);
+        }
+    }
+
+    // 数据行和由它们建立的列存储一起发布，读取方不会看到新行配旧索引
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Collections.emptyList(), NO_DATA_VERSION);
+
+        final List<TemperatureData> rows;
+        final TemperatureColumnStore store;
+        final long dataVersion;
+
+        Snapshot(List<TemperatureData> rows, long dataVersion) {
+            this.rows = rows;
+            this.store = TemperatureColumnStore.of(rows);
+            this.dataVersion = dataVersion;
+        }
+
+        // 按行号（升序）取出数据行
+        List<TemperatureData> select(int[] rowNumbers) {
+            List<TemperatureData> selected = new ArrayList<>(rowNumbers.length);
+            for (int row : rowNumbers) {
+                selected.add(rows.get(row));
+            }
+            return Collections.unmodifiableList(selected);
+        }
     }
-}
\ No newline at end of file
+}
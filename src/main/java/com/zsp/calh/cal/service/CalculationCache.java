@@ -0,0 +1,187 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.TemperatureData;
+import com.zsp.calh.cal.utils.CalculationCacheRepository;
+import com.zsp.calh.cal.utils.DatabaseManager;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单行计算结果的两级缓存：内存中的 LRU 在前，calc_cache 表在后。
+ * 键是输入指纹：该行参与计算的 A/C/D/Z 取值与计算参数 (该行使用的 E、G 取值、轴位、求解方式、F 网格) 的 SHA-256。
+ * 行数据一旦变化，指纹随之变化，旧结果自然不再命中，不需要显式失效；
+ * 修改计算方法时递增 FORMAT_VERSION，使已有的缓存全部失效。
+ * 内存条目数可通过 -Dcal.cache.memoryEntries 调整，-Dcal.cache.enabled=false 关闭缓存
+ */
+public class CalculationCache {
+    public static final int DEFAULT_MEMORY_ENTRIES = Math.max(1, Integer.getInteger("cal.cache.memoryEntries", 50_000));
+
+    // 结果数组的格式和计算方法版本，变化后旧缓存全部失效
+    static final int FORMAT_VERSION = 2;
+    // 指纹取 SHA-256 的前 16 字节
+    private static final int KEY_BYTES = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // 单例实例
+    private static CalculationCache instance;
+
+    private final Map<String, double[]> memory;
+    // 为 null 时只使用内存缓存
+    private final CalculationCacheRepository repository;
+
+    public CalculationCache(int memoryEntries, CalculationCacheRepository repository) {
+        this.repository = repository;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, double[]> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取单例实例。数据库已初始化时同时使用 calc_cache 表；关闭缓存时返回 null
+     */
+    public static synchronized CalculationCache getInstance() {
+        if (!Boolean.parseBoolean(System.getProperty("cal.cache.enabled", "true"))) {
+            return null;
+        }
+        if (instance == null) {
+            CalculationCacheRepository repository = null;
+            try {
+                repository = new CalculationCacheRepository(DatabaseManager.getInstance());
+            } catch (IllegalStateException e) {
+                System.err.println("数据库尚未初始化，计算缓存只保存在内存中");
+            }
+            instance = new CalculationCache(DEFAULT_MEMORY_ENTRIES, repository);
+        }
+        return instance;
+    }
+
+    /**
+     * 计算一行数据在给定参数下的输入指纹
+     */
+    public static String fingerprint(TemperatureData row, CalculationRequest request) {
+        return fingerprint(row, request, FORMAT_VERSION);
+    }
+
+    // 指定格式版本的指纹，版本不同时指纹必然不同
+    static String fingerprint(TemperatureData row, CalculationRequest request, int formatVersion) {
+        ProbeChannel channel = request.getChannel();
+        List<Double> gValues = request.getGValues();
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 7 + Double.BYTES * (11 + gValues.size()) + 1);
+
+        // 计算方法与参数
+        buffer.putInt(formatVersion);
+        buffer.putInt(request.getFMinStep());
+        buffer.putInt(request.getFMaxStep());
+        buffer.putInt(request.getFStepsPerUnit());
+        buffer.putInt(CalculationEngine.TOP_K);
+        buffer.putInt(request.getTargetAxis());
+        buffer.put((byte) request.getSolverMode().ordinal());
+        // 实际使用的板温：固定值或该行的板温通道
+        buffer.putDouble(request.getPlateTemp(row));
+        buffer.putInt(gValues.size());
+        for (double g : gValues) buffer.putDouble(g);
+
+        // 该行参与计算的取值：C、D、各轴的 A 和 Z
+        buffer.putDouble(channel.linear(row));
+        buffer.putDouble(channel.nonlinear(row));
+        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+            buffer.putDouble(channel.ground(row, ProbeChannel.FIRST_AXLE + k));
+            buffer.putDouble(channel.car(row, ProbeChannel.FIRST_AXLE + k));
+        }
+
+        byte[] digest = sha256().digest(buffer.array());
+        char[] key = new char[KEY_BYTES * 2];
+        for (int i = 0; i < KEY_BYTES; i++) {
+            key[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            key[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(key);
+    }
+
+    /**
+     * 批量查找：先查内存，未命中的再查数据库，数据库命中的放入内存。
+     * 数据库读取失败时只返回内存命中的部分
+     */
+    public Map<String, double[]> getAll(Collection<String> keys) {
+        Map<String, double[]> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        synchronized (memory) {
+            for (String key : keys) {
+                double[] value = memory.get(key);
+                if (value != null) {
+                    found.put(key, value);
+                } else {
+                    misses.add(key);
+                }
+            }
+        }
+        if (repository == null || misses.isEmpty()) return found;
+
+        try {
+            Map<String, double[]> stored = repository.findAll(misses);
+            found.putAll(stored);
+            synchronized (memory) {
+                memory.putAll(stored);
+            }
+        } catch (SQLException e) {
+            System.err.println("读取计算缓存失败: " + e.getMessage());
+        }
+        return found;
+    }
+
+    /**
+     * 保存新计算的结果。写库失败只输出错误，不影响本次计算
+     */
+    public void putAll(Map<String, double[]> entries) {
+        if (entries.isEmpty()) return;
+        synchronized (memory) {
+            memory.putAll(entries);
+        }
+        if (repository == null) return;
+        try {
+            repository.saveAll(entries);
+        } catch (SQLException e) {
+            System.err.println("保存计算缓存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 清空内存和数据库中的缓存
+     */
+    public void clear() throws SQLException {
+        synchronized (memory) {
+            memory.clear();
+        }
+        if (repository != null) {
+            repository.clear();
+        }
+    }
+
+    public int getMemorySize() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 Java 平台都必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
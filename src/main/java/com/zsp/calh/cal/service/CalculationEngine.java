@@ -0,0 +1,1021 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 标定计算引擎：每行数据的 Top-K 搜索相互独立，按行分发到 ForkJoinPool 并行计算，
+ * 结果按原始行顺序合并。并行度可通过系统属性 cal.parallelism 配置，默认等于 CPU 核数。
+ * 设置了 CalculationCache 时，输入指纹相同的行直接使用缓存的结果
+ */
+public class CalculationEngine {
+    public static final int TOP_K = 5;
+    // 自适应模式最粗一层大约取多少个 G
+    private static final int ADAPTIVE_COARSE_POINTS = 9;
+    // 最粗一层各 G 的标准差相对差异不超过该值时，认为标准差不随 G 变化（排序只由舍入噪声决定），退回逐个 G 计算
+    private static final double ADAPTIVE_FLAT_TOLERANCE = 1e-6;
+    // 结果数组中每个候选占用的 double 个数：F, G, 标准差, 轴3-6差值
+    static final int CANDIDATE_FIELDS = 3 + ProbeChannel.AXLE_COUNT;
+
+    // 单例实例
+    private static CalculationEngine instance;
+
+    private final ForkJoinPool pool;
+    // 每个工作线程复用一个 Top-K 选择器
+    private final ThreadLocal<TopKSelector> selectors = ThreadLocal.withInitial(() -> new TopKSelector(TOP_K));
+    // 每个工作线程复用一组搜索用的数组
+    private final ThreadLocal<SearchBuffers> buffers = ThreadLocal.withInitial(SearchBuffers::new);
+    // H/差值的批量计算内核，默认标量实现，-Dcal.vector=true 时尝试使用 Vector API
+    private final GridKernel kernel;
+    // 单行结果缓存，为 null 时每次都重新计算
+    private volatile CalculationCache cache;
+
+    public CalculationEngine(int parallelism) {
+        this(parallelism, GridKernel.create());
+    }
+
+    public CalculationEngine(int parallelism, GridKernel kernel) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.kernel = kernel;
+    }
+
+    // 获取单例实例
+    public static synchronized CalculationEngine getInstance() {
+        if (instance == null) {
+            int parallelism = Integer.getInteger("cal.parallelism", Runtime.getRuntime().availableProcessors());
+            instance = new CalculationEngine(parallelism);
+            instance.setCache(CalculationCache.getInstance());
+        }
+        return instance;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public GridKernel getKernel() {
+        return kernel;
+    }
+
+    public CalculationCache getCache() {
+        return cache;
+    }
+
+    public void setCache(CalculationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 关闭线程池。此方法应在应用程序关闭时调用。
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 关闭单例的线程池；从未创建过单例时什么也不做，避免退出时才创建线程池和缓存
+     */
+    public static synchronized void shutdownIfStarted() {
+        if (instance != null) {
+            instance.shutdown();
+        }
+    }
+
+    /**
+     * 并行计算所有行的 Top-K 结果
+     * @param rows    待计算的数据行
+     * @param request 计算参数
+     * @return 按行顺序排列的结果，每行最多 TOP_K 条
+     */
+    public List<ResultModel> calculate(List<TemperatureData> rows, CalculationRequest request) {
+        return calculate(rows, request, ProgressMonitor.NONE);
+    }
+
+    /**
+     * 并行计算所有行的 Top-K 结果，报告已计算的行数，取消后抛出 CancellationException
+     */
+    public List<ResultModel> calculate(List<TemperatureData> rows, CalculationRequest request, ProgressMonitor monitor) {
+        return calculate(rows, request, monitor, null);
+    }
+
+    /**
+     * 并行计算所有行的 Top-K 结果，同时按行号顺序把每行结果交给 listener
+     */
+    public List<ResultModel> calculate(List<TemperatureData> rows, CalculationRequest request, ProgressMonitor monitor,
+                                       RowResultListener listener) {
+        List<ResultModel> results = new ArrayList<>();
+        for (List<ResultModel> rowResults : calculateRows(rows, request, monitor, listener)) {
+            results.addAll(rowResults);
+        }
+        return results;
+    }
+
+    /**
+     * 并行计算所有行的 Top-K 结果，按行分组返回，第 i 个元素对应 rows 中的第 i 行
+     */
+    public List<List<ResultModel>> calculateRows(List<TemperatureData> rows, CalculationRequest request) {
+        return calculateRows(rows, request, ProgressMonitor.NONE);
+    }
+
+    /**
+     * 按行分组的并行计算，报告已计算的行数。
+     * 取消后未开始的行不再计算，抛出 CancellationException
+     */
+    public List<List<ResultModel>> calculateRows(List<TemperatureData> rows, CalculationRequest request, ProgressMonitor monitor) {
+        return calculateRows(rows, request, monitor, null);
+    }
+
+    /**
+     * 按行分组的并行计算，每算完一段连续的行就按行号顺序交给 listener，
+     * 调用方不必等待全部完成即可显示前面的结果。listener 收到的顺序与返回值的顺序一致
+     * @param listener 为 null 时不逐行通知
+     */
+    public List<List<ResultModel>> calculateRows(List<TemperatureData> rows, CalculationRequest request, ProgressMonitor monitor,
+                                                 RowResultListener listener) {
+        return calculateMatrix(rows, Collections.singletonList(request), monitor, listener);
+    }
+
+    /**
+     * 矩阵计算：每行数据只读取一次，依次计算 requests 中每组参数（通常是全部探头/方位组合）的 Top-K，
+     * 一行的各组合在同一个任务中连续计算，行数据始终在缓存中。
+     * 第 i 个元素是 rows 中第 i 行的结果，按 requests 的顺序分组，每组最多 TOP_K 条，
+     * 组合由 ResultModel.getChannel() 区分。listener 的约定与 calculateRows 相同
+     */
+    public List<List<ResultModel>> calculateMatrix(List<TemperatureData> rows, List<CalculationRequest> requests,
+                                                   ProgressMonitor monitor, RowResultListener listener) {
+        MatrixSearch search = new MatrixSearch(rows, requests);
+        List<List<ResultModel>> results = calculateInParallel(rows.size(), monitor, listener,
+                i -> toResultModels(i + 1, rows.get(i), requests, search.pack(i)));
+        search.saveComputed();
+        return results;
+    }
+
+    /**
+     * 矩阵计算，结果按行号顺序追加到 out，不创建 ResultModel。
+     * 调用方可以在计算过程中读取 out 中已追加的条目
+     * @param out 以同一批 rows 和 requests 创建的结果缓冲区
+     */
+    public void calculateMatrix(List<TemperatureData> rows, List<CalculationRequest> requests, ProgressMonitor monitor,
+                                ResultBuffer out) {
+        if (out.getRows() != rows || !out.getRequests().equals(requests)) {
+            throw new IllegalArgumentException("结果缓冲区与计算的数据行或参数不一致");
+        }
+        MatrixSearch search = new MatrixSearch(rows, requests);
+        forEachInParallel(rows.size(), monitor, search::pack, out::addRow);
+        search.saveComputed();
+    }
+
+    /**
+     * 矩阵计算中与缓存有关的部分：创建时在线程池中按行并行计算输入指纹，再批量取出已缓存的 行 × 组合，
+     * pack 只计算未命中的部分，最后由 saveComputed 保存新计算的结果
+     */
+    private final class MatrixSearch {
+        private final List<TemperatureData> rows;
+        private final List<CalculationRequest> requests;
+        private final CalculationCache rowCache = cache;
+        private final String[] keys;
+        private final Map<String, double[]> hits;
+        private final Map<String, double[]> computed = new ConcurrentHashMap<>();
+
+        MatrixSearch(List<TemperatureData> rows, List<CalculationRequest> requests) {
+            this.rows = rows;
+            this.requests = requests;
+            int combos = requests.size();
+            keys = new String[rows.size() * combos];
+            if (rowCache == null) {
+                hits = Collections.emptyMap();
+                return;
+            }
+            // 每个指纹都要做一次 SHA-256，行 × 组合较多时在调用线程上逐个计算很慢
+            await(pool.submit(() -> IntStream.range(0, rows.size())
+                    .parallel()
+                    .forEach(i -> {
+                        for (int c = 0; c < combos; c++) {
+                            keys[i * combos + c] = CalculationCache.fingerprint(rows.get(i), requests.get(c));
+                        }
+                    })));
+            hits = rowCache.getAll(Arrays.asList(keys));
+        }
+
+        // 第 i 行每组参数的候选，优先使用缓存中的结果
+        double[][] pack(int i) {
+            TemperatureData row = rows.get(i);
+            int combos = requests.size();
+            double[][] packed = new double[combos][];
+            for (int c = 0; c < combos; c++) {
+                String key = keys[i * combos + c];
+                packed[c] = key == null ? null : hits.get(key);
+                if (packed[c] == null) {
+                    packed[c] = searchPacked(row, requests.get(c));
+                    if (key != null) computed.put(key, packed[c]);
+                }
+            }
+            return packed;
+        }
+
+        void saveComputed() {
+            if (rowCache == null) return;
+            rowCache.putAll(computed);
+        }
+    }
+
+    /**
+     * 在线程池中并行执行 rowTask(0..total-1)，按下标顺序返回，并按行号顺序通知 listener
+     */
+    private List<List<ResultModel>> calculateInParallel(int total, ProgressMonitor monitor, RowResultListener listener,
+                                                        IntFunction<List<ResultModel>> rowTask) {
+        List<List<ResultModel>> results = new ArrayList<>(total);
+        forEachInParallel(total, monitor, rowTask, (i, rowResults) -> {
+            results.add(rowResults);
+            if (listener != null) listener.onRowCompleted(i, rowResults);
+        });
+        return results;
+    }
+
+    /**
+     * 在线程池中并行执行 rowTask(0..total-1)，每行的结果按行号顺序交给 sink，交付后不再保留
+     */
+    private <T> void forEachInParallel(int total, ProgressMonitor monitor, IntFunction<T> rowTask, RowSink<T> sink) {
+        // 大约每 1% 报告一次进度
+        int reportInterval = Math.max(1, total / 100);
+        AtomicInteger done = new AtomicInteger();
+        OrderedRowPublisher<T> publisher = new OrderedRowPublisher<>(total, sink);
+
+        ForkJoinTask<?> task = pool.submit(() -> IntStream.range(0, total)
+                .parallel()
+                .forEach(i -> {
+                    if (monitor.isCancelled()) {
+                        throw new CancellationException("计算已取消");
+                    }
+                    publisher.complete(i, rowTask.apply(i));
+                    int count = done.incrementAndGet();
+                    if (count % reportInterval == 0 || count == total) {
+                        monitor.update(count, total, "已计算 " + count + " / " + total + " 行");
+                    }
+                }));
+        // 所有行交付后任务才结束，sink 中的结果对调用线程可见
+        await(task);
+    }
+
+    /**
+     * 为一次查询的数据行创建计算会话：并行计算每行在每个 G 下与板温无关的中间量。
+     * 之后只改变板温、轴位优选、求解方式或 F 精度时，用 calculate(session, ...) 重新排序即可
+     */
+    public CalculationSession openSession(List<TemperatureData> rows, CalculationRequest request, ProgressMonitor monitor) {
+        ProbeChannel channel = request.getChannel();
+        double[] gValues = request.getGValueArray().clone();
+        int gCount = gValues.length;
+        double[][] partials = new double[rows.size()][];
+        int total = rows.size();
+        int reportInterval = Math.max(1, total / 100);
+        AtomicInteger done = new AtomicInteger();
+
+        ForkJoinTask<?> task = pool.submit(() -> IntStream.range(0, total)
+                .parallel()
+                .forEach(i -> {
+                    if (monitor.isCancelled()) {
+                        throw new CancellationException("计算已取消");
+                    }
+                    partials[i] = computePartials(rows.get(i), channel, gValues);
+                    int count = done.incrementAndGet();
+                    if (count % reportInterval == 0 || count == total) {
+                        monitor.update(count, total, "已准备 " + count + " / " + total + " 行");
+                    }
+                }));
+        await(task);
+        return new CalculationSession(rows, channel, gValues, partials);
+    }
+
+    /**
+     * 用会话中的中间量重新计算所有行的 Top-K，结果与对会话的数据行完整计算相同。
+     * 不查询也不写入计算缓存
+     * @throws IllegalArgumentException 会话与计算参数的探头/方位或 G 的取值不同
+     */
+    public List<ResultModel> calculate(CalculationSession session, CalculationRequest request, ProgressMonitor monitor,
+                                       RowResultListener listener) {
+        if (!session.isCompatible(request)) {
+            throw new IllegalArgumentException("计算会话与计算参数的探头/方位或 G 的取值不同");
+        }
+        List<TemperatureData> rows = session.getRows();
+        String remark = request.getRemark();
+        List<ResultModel> results = new ArrayList<>();
+        for (List<ResultModel> rowResults : calculateInParallel(rows.size(), monitor, listener, i -> {
+            TopKSelector selector = selectors.get();
+            searchPartials(session.getPartials(i), request.getPlateTemp(rows.get(i)), request, selector);
+            return toResultModels(rowInfo(i + 1, rows.get(i)), remark, request, selector);
+        })) {
+            results.addAll(rowResults);
+        }
+        return results;
+    }
+
+    /**
+     * 用会话中的中间量重新计算，结果按行号顺序追加到 out，不创建 ResultModel
+     * @param out 以会话的数据行和 request 创建的结果缓冲区
+     * @throws IllegalArgumentException 会话与计算参数不兼容，或 out 与会话、计算参数不一致
+     */
+    public void calculate(CalculationSession session, CalculationRequest request, ProgressMonitor monitor,
+                          ResultBuffer out) {
+        if (!session.isCompatible(request)) {
+            throw new IllegalArgumentException("计算会话与计算参数的探头/方位或 G 的取值不同");
+        }
+        List<TemperatureData> rows = session.getRows();
+        if (out.getRows() != rows || !out.getRequests().equals(Collections.singletonList(request))) {
+            throw new IllegalArgumentException("结果缓冲区与计算会话的数据行或参数不一致");
+        }
+        forEachInParallel(rows.size(), monitor, i -> {
+            TopKSelector selector = selectors.get();
+            searchPartials(session.getPartials(i), request.getPlateTemp(rows.get(i)), request, selector);
+            return new double[][]{pack(selector)};
+        }, out::addRow);
+    }
+
+    // 计算一行的会话中间量，布局见 CalculationSession
+    private static double[] computePartials(TemperatureData row, ProbeChannel channel, double[] gValues) {
+        int gCount = gValues.length;
+        double[] partials = new double[CalculationSession.valuesPerRow(gCount)];
+        double C = channel.linear(row);
+        double D = channel.nonlinear(row);
+        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+            partials[CalculationSession.Z_OFFSET + k] = channel.car(row, ProbeChannel.FIRST_AXLE + k);
+        }
+        partials[CalculationSession.D_OFFSET] = D;
+        // 1 + D/100 == 0 时 H 恒为 0，不需要中间量
+        if (1 + D / 100.0 == 0) return partials;
+
+        // 与 GridKernel.evaluateG 相同的表达式，只是不乘板温；标准差本来就按 E=0 计算
+        double D_pct = D / 100.0;
+        int term2Offset = CalculationSession.term2Offset(gCount);
+        int stdDevOffset = CalculationSession.stdDevOffset(gCount);
+        double[] baseDiffs = new double[ProbeChannel.AXLE_COUNT];
+        for (int g = 0; g < gCount; g++) {
+            double G_pct = gValues[g] / 100.0;
+            double term1 = (1 + G_pct) / (1 + D_pct);
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                double A = channel.ground(row, ProbeChannel.FIRST_AXLE + k);
+                double shape = term1 * (A - C);
+                partials[CalculationSession.TERMS_OFFSET + k * gCount + g] = shape;
+                baseDiffs[k] = shape - partials[CalculationSession.Z_OFFSET + k];
+            }
+            partials[term2Offset + g] = ((1 + G_pct) * D_pct / (1 + D_pct)) - G_pct;
+            partials[stdDevOffset + g] = calculateStdDev(baseDiffs);
+        }
+        return partials;
+    }
+
+    // 由会话中间量和该行的板温 E 恢复各 G 的偏移，标准差直接取缓存的值，再在 F 网格上选出 Top-K
+    private void searchPartials(double[] partials, double E, CalculationRequest request, TopKSelector selector) {
+        selector.reset();
+        SearchBuffers buf = buffers.get();
+        double[] carTemps = buf.carTemps;
+        System.arraycopy(partials, CalculationSession.Z_OFFSET, carTemps, 0, ProbeChannel.AXLE_COUNT);
+        double D = partials[CalculationSession.D_OFFSET];
+        if (1 + D / 100.0 == 0) {
+            // calculateH 在 1 + D/100 == 0 时不使用 A 和 C
+            searchPointwise(buf.groundTemps, carTemps, 0.0, D, E, request, selector);
+            return;
+        }
+
+        double[] allG = request.getGValueArray();
+        int n = allG.length;
+        int[] selected = null;
+        int stdDevOffset = CalculationSession.stdDevOffset(n);
+        if (request.isAdaptive()) {
+            selected = refineG(n, (indices, count, stdDevsOut) -> {
+                for (int i = 0; i < count; i++) stdDevsOut[indices[i]] = partials[stdDevOffset + indices[i]];
+            });
+        }
+        int gCount = selected == null ? n : selected.length;
+        double[] gValues = selected == null ? allG : gather(allG, selected, gCount);
+        buf.ensureGCapacity(gCount);
+        for (int g = 0; g < gCount; g++) {
+            int column = selected == null ? g : selected[g];
+            restoreOffsets(partials, n, column, E, gCount, g, buf.offsets);
+            buf.stdDevs[g] = partials[stdDevOffset + column];
+        }
+        selectCandidates(gValues, carTemps, request, selector, buf);
+    }
+
+    // 由会话中间量恢复第 column 个 G 在板温 E 下的各轴偏移，写入 offsetsOut[k * outCount + outIndex]，
+    // 与 GridKernel.evaluateG 的结果相同。这里和 computePartials 逐项重复了 evaluateG 的运算顺序，
+    // 修改内核时需同步修改，CalculationSessionTest 会比较两者的结果
+    private static void restoreOffsets(double[] partials, int gCount, int column, double E, int outCount, int outIndex,
+                                       double[] offsetsOut) {
+        double plateTerm = partials[CalculationSession.term2Offset(gCount) + column] * E;
+        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+            offsetsOut[k * outCount + outIndex] = partials[CalculationSession.TERMS_OFFSET + k * gCount + column] + plateTerm;
+        }
+    }
+
+    /**
+     * 整体拟合：每个设备（线别 + 设备名）只求一组 (F, G)，使该设备所有行的差值整体最优。
+     * 排序规则与逐行计算相同，只是标准差换成所有行、所有轴差值的总体标准差，各轴差值换成所有行的平均差值。
+     * 每行只计算一次各 G 下的差值并累加，评价 (F, G) 时只用累加的和，耗时与行数成线性关系。
+     * 1 + D/100 == 0 的行差值与 F、G 无关，不参与拟合
+     * @return 按设备首次出现的顺序排列，每个设备最多 TOP_K 条
+     */
+    public List<ResultModel> calculateGlobal(List<TemperatureData> rows, CalculationRequest request, ProgressMonitor monitor) {
+        return fitGlobal(accumulateGlobal(rows, request, monitor).values(), request);
+    }
+
+    /**
+     * 多组参数（通常是全部探头/方位组合）的整体拟合，数据行只需查询一次。
+     * 结果按设备分组，每个设备内按 requests 的顺序排列
+     */
+    public List<ResultModel> calculateGlobal(List<TemperatureData> rows, List<CalculationRequest> requests,
+                                             ProgressMonitor monitor) {
+        List<Map<String, GlobalFitAccumulator>> sums = new ArrayList<>(requests.size());
+        for (CalculationRequest request : requests) {
+            sums.add(accumulateGlobal(rows, request, monitor));
+        }
+        List<ResultModel> results = new ArrayList<>();
+        // 每行都会为其设备创建累加器，各组参数的设备及其顺序相同
+        for (String key : sums.get(0).keySet()) {
+            for (int r = 0; r < requests.size(); r++) {
+                results.addAll(fitGlobal(Collections.singletonList(sums.get(r).get(key)), requests.get(r)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 并行累加各行在每个 G 下的差值，按设备分组。
+     * 分块读取时可以对每块调用一次，再用 mergeGlobal 合并，最后调用 fitGlobal
+     * @return 线别+设备 -> 累加器，按设备首次出现的顺序排列
+     */
+    public Map<String, GlobalFitAccumulator> accumulateGlobal(List<TemperatureData> rows, CalculationRequest request,
+                                                              ProgressMonitor monitor) {
+        int total = rows.size();
+        int gCount = request.getGValueArray().length;
+        int reportInterval = Math.max(1, total / 100);
+        AtomicInteger done = new AtomicInteger();
+
+        ForkJoinTask<Map<String, GlobalFitAccumulator>> task = pool.submit(() -> IntStream.range(0, total)
+                .parallel()
+                .collect(LinkedHashMap<String, GlobalFitAccumulator>::new, (groups, i) -> {
+                    if (monitor.isCancelled()) {
+                        throw new CancellationException("计算已取消");
+                    }
+                    TemperatureData row = rows.get(i);
+                    GlobalFitAccumulator accumulator = groups.computeIfAbsent(groupKey(row),
+                            key -> new GlobalFitAccumulator(row.getLineNumber(), row.getDeviceName(), gCount));
+                    accumulateRow(row, request, accumulator);
+                    int count = done.incrementAndGet();
+                    if (count % reportInterval == 0 || count == total) {
+                        monitor.update(count, total, "已累加 " + count + " / " + total + " 行");
+                    }
+                }, CalculationEngine::mergeGlobal));
+        return await(task);
+    }
+
+    /**
+     * 把 from 中的累加器并入 into，from 中新出现的设备排在最后
+     */
+    public static void mergeGlobal(Map<String, GlobalFitAccumulator> into, Map<String, GlobalFitAccumulator> from) {
+        for (Map.Entry<String, GlobalFitAccumulator> entry : from.entrySet()) {
+            GlobalFitAccumulator existing = into.get(entry.getKey());
+            if (existing == null) {
+                into.put(entry.getKey(), entry.getValue());
+            } else {
+                existing.merge(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 由累加的和为每个设备选出 Top-K (F, G)，不再访问行数据
+     */
+    public List<ResultModel> fitGlobal(Collection<GlobalFitAccumulator> accumulators, CalculationRequest request) {
+        double[] gValues = request.getGValueArray();
+        double[] fValues = request.getFValues();
+        int targetAxis = request.getTargetAxis();
+        TopKSelector selector = new TopKSelector(TOP_K);
+        double[] baseDiffs = new double[ProbeChannel.AXLE_COUNT];
+        double[] diffs = new double[ProbeChannel.AXLE_COUNT];
+        List<ResultModel> results = new ArrayList<>();
+        for (GlobalFitAccumulator accumulator : accumulators) {
+            // 该设备没有可用于拟合的行
+            if (accumulator.getRowCount() == 0) continue;
+            selector.reset();
+            for (int g = 0; g < gValues.length; g++) {
+                double stdDev = accumulator.getStdDev(g);
+                for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                    baseDiffs[k] = accumulator.getMeanDiff(g, k);
+                }
+
+                // 平均差值与单行差值一样随 F 整体平移，解析模式同样只需在闭式最优 F 附近取候选
+                int from = 0;
+                int to = fValues.length - 1;
+                if (request.isAnalytic()) {
+                    int best = solveOptimalFIndex(baseDiffs, targetAxis, request);
+                    from = Math.max(0, best - TOP_K);
+                    to = Math.min(fValues.length - 1, best + TOP_K);
+                }
+                for (int i = from; i <= to; i++) {
+                    for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                        diffs[k] = baseDiffs[k] + fValues[i];
+                    }
+                    double key = TopKSelector.secondaryKey(targetAxis, stdDev, diffs);
+                    if (selector.accepts(stdDev, key)) {
+                        selector.offer(fValues[i], gValues[g], stdDev, key, diffs);
+                    }
+                }
+            }
+
+            String rowInfo = String.format("%s [%s] 共%d行", accumulator.getLineNumber(), accumulator.getDeviceName(),
+                    accumulator.getRowCount());
+            results.addAll(toResultModels(rowInfo, request.getGlobalRemark(), request, selector));
+        }
+        return results;
+    }
+
+    // 计算一行在每个 G 下 F=0 的各轴差值并加入累加器；1 + D/100 == 0 的行不参与整体拟合
+    private void accumulateRow(TemperatureData row, CalculationRequest request, GlobalFitAccumulator accumulator) {
+        ProbeChannel channel = request.getChannel();
+        double E = request.getPlateTemp(row);
+        double[] gValues = request.getGValueArray();
+        int gCount = gValues.length;
+
+        SearchBuffers buf = buffers.get();
+        double C = channel.linear(row);
+        double D = channel.nonlinear(row);
+        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+            buf.groundTemps[k] = channel.ground(row, ProbeChannel.FIRST_AXLE + k);
+            buf.carTemps[k] = channel.car(row, ProbeChannel.FIRST_AXLE + k);
+        }
+        if (1 + D / 100.0 == 0) {
+            // calculateH 恒为 0，差值既不随 F 平移也与 G 无关，不能用来拟合 (F, G)
+            return;
+        }
+        buf.ensureGCapacity(gCount);
+        kernel.evaluateG(buf.groundTemps, buf.carTemps, C, D, E, gValues, buf.offsets, buf.stdDevs);
+        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+            for (int g = 0; g < gCount; g++) {
+                buf.offsets[k * gCount + g] = (buf.offsets[k * gCount + g] + 0.0) - buf.carTemps[k];
+            }
+        }
+        accumulator.addRow(buf.offsets, buf.stdDevs);
+    }
+
+    private static String groupKey(TemperatureData row) {
+        return row.getLineNumber() + "\u0000" + row.getDeviceName();
+    }
+
+    // 等待线程池中的任务完成；取消或中断时抛出 CancellationException
+    private static <T> T await(ForkJoinTask<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("计算被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw (CancellationException) e.getCause();
+            }
+            throw new IllegalStateException("计算出错: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // 按行号顺序接收每行的结果
+    @FunctionalInterface
+    private interface RowSink<T> {
+        void accept(int rowIndex, T rowResult);
+    }
+
+    /**
+     * 并行计算时各行完成的先后不定，这里暂存已完成的行，
+     * 只有当前面的行都已交付时才交付下一行，保证 sink 按行号顺序收到结果
+     */
+    private static class OrderedRowPublisher<T> {
+        private final Object[] completed;
+        private final RowSink<T> sink;
+        private int next;
+
+        OrderedRowPublisher(int total, RowSink<T> sink) {
+            this.completed = new Object[total];
+            this.sink = sink;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void complete(int rowIndex, T rowResult) {
+            completed[rowIndex] = rowResult;
+            while (next < completed.length && completed[next] != null) {
+                sink.accept(next, (T) completed[next]);
+                // 已交付的行不再需要暂存
+                completed[next] = null;
+                next++;
+            }
+        }
+    }
+
+    /**
+     * 计算单行数据的 Top-K (F, G) 组合
+     * @param rowNumber 行号（从1开始，用于行信息显示）
+     */
+    public List<ResultModel> calculateRow(int rowNumber, TemperatureData row, CalculationRequest request) {
+        return toResultModels(rowNumber, row, request, searchPacked(row, request));
+    }
+
+    // 搜索单行并把入选的候选按顺序压缩为 double 数组，便于缓存
+    private double[] searchPacked(TemperatureData row, CalculationRequest request) {
+        TopKSelector selector = selectors.get();
+        search(row, request, selector);
+        return pack(selector);
+    }
+
+    // 把 selector 中的候选按顺序压缩为 double 数组：每个候选依次为 F, G, 标准差, 轴3-6差值
+    private static double[] pack(TopKSelector selector) {
+        double[] packed = new double[selector.size() * CANDIDATE_FIELDS];
+        for (int i = 0; i < selector.size(); i++) {
+            int offset = i * CANDIDATE_FIELDS;
+            packed[offset] = selector.getF(i);
+            packed[offset + 1] = selector.getG(i);
+            packed[offset + 2] = selector.getStdDev(i);
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                packed[offset + 3 + k] = selector.getDiff(i, ProbeChannel.FIRST_AXLE + k);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * 在 F/G 网格上搜索单行数据，最优的候选保留在 selector 中，过程中不创建结果对象
+     */
+    public void search(TemperatureData row, CalculationRequest request, TopKSelector selector) {
+        ProbeChannel channel = request.getChannel();
+        double E = request.getPlateTemp(row);
+        selector.reset();
+
+        // 每行只取一次 A/C/D/Z，F/G 遍历中只做纯数值运算
+        SearchBuffers buf = buffers.get();
+        double[] groundTemps = buf.groundTemps;
+        double[] carTemps = buf.carTemps;
+        double C = channel.linear(row);
+        double D = channel.nonlinear(row);
+        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+            groundTemps[k] = channel.ground(row, ProbeChannel.FIRST_AXLE + k);
+            carTemps[k] = channel.car(row, ProbeChannel.FIRST_AXLE + k);
+        }
+        if (1 + D / 100.0 == 0) {
+            searchPointwise(groundTemps, carTemps, C, D, E, request, selector);
+            return;
+        }
+
+        // F 只是加性偏移：各轴差值随 F 整体平移，标准差与 F 无关，每个 G 只需计算一次（板温同理，见 GridKernel.evaluateG）。
+        // 逐个 F 重新计算只会引入末位舍入噪声，使排序被噪声而非第二关键字决定
+        double[] gValues = request.getGValueArray();
+        if (request.isAdaptive()) {
+            double[] allG = gValues;
+            int[] selected = refineG(allG.length, (indices, count, stdDevsOut) -> {
+                buf.ensureGCapacity(count);
+                kernel.evaluateG(groundTemps, carTemps, C, D, E, gather(allG, indices, count), buf.offsets, buf.stdDevs);
+                for (int i = 0; i < count; i++) stdDevsOut[indices[i]] = buf.stdDevs[i];
+            });
+            if (selected != null) gValues = gather(allG, selected, selected.length);
+        }
+        buf.ensureGCapacity(gValues.length);
+        kernel.evaluateG(groundTemps, carTemps, C, D, E, gValues, buf.offsets, buf.stdDevs);
+        selectCandidates(gValues, carTemps, request, selector, buf);
+    }
+
+    /**
+     * 由 buf.offsets/buf.stdDevs 中每个 G 的各轴偏移和标准差，在 F 网格上选出 Top-K 候选
+     */
+    private void selectCandidates(double[] gValues, double[] carTemps, CalculationRequest request,
+                                  TopKSelector selector, SearchBuffers buf) {
+        int gCount = gValues.length;
+        int targetAxis = request.getTargetAxis();
+        double[] fValues = request.getFValues();
+        buf.ensureFCapacity(fValues.length);
+        double[] axleOffsets = buf.axleOffsets;
+        double[] baseDiffs = buf.baseDiffs;
+        double[] diffs = buf.diffs;
+        for (int g = 0; g < gCount; g++) {
+            double G = gValues[g];
+            double stdDev = buf.stdDevs[g];
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                axleOffsets[k] = buf.offsets[k * gCount + g];
+            }
+
+            int from = 0;
+            int to = fValues.length - 1;
+            if (request.isAnalytic()) {
+                // 排序的第二关键字在闭式最优 F 两侧单调增大，只需在其附近 TOP_K 个格点内取候选
+                for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                    baseDiffs[k] = (axleOffsets[k] + 0.0) - carTemps[k];
+                }
+                int best = solveOptimalFIndex(baseDiffs, targetAxis, request);
+                from = Math.max(0, best - TOP_K);
+                to = Math.min(fValues.length - 1, best + TOP_K);
+            }
+
+            // 批量计算该 G 下所有 F 的差值和第二关键字，只为能进入 Top-K 的候选整理差值
+            int count = to - from + 1;
+            kernel.sweepF(axleOffsets, carTemps, fValues, from, count, targetAxis, stdDev, buf.sweepDiffs, buf.sweepKeys);
+            for (int j = 0; j < count; j++) {
+                double key = buf.sweepKeys[j];
+                if (!selector.accepts(stdDev, key)) continue;
+                for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                    diffs[k] = buf.sweepDiffs[k * count + j];
+                }
+                selector.offer(fValues[from + j], G, stdDev, key, diffs);
+            }
+        }
+    }
+
+    /**
+     * 计算若干个 G 的标准差：对 indices 的前 count 个下标 i，把 G = gValues[i] 的标准差写入 stdDevsOut[i]
+     */
+    @FunctionalInterface
+    private interface StdDevEvaluator {
+        void evaluate(int[] indices, int count, double[] stdDevsOut);
+    }
+
+    /**
+     * 自适应模式：由粗到细找出标准差最小的 G，返回需要进一步计算 F 的 G 的下标（升序），全部 G 都需要时返回 null。
+     * <p>
+     * 依据：F=0 时各轴差值 baseDiff_k = term1(G)·(A_k−C) + term2(G)·E − Z_k，term1、term2 都是 G 的一次函数，
+     * 所以各轴差值的方差是 G 的二次函数，标准差在 G 上是凸的。凸序列在间距为 s 的格点上的最小点 c 附近 ±s
+     * 内必然包含更细格点上的最小点，因此每一层保留标准差最小的 TOP_K 个格点，在其两侧半个间距处补算，
+     * 直到间距为一个格点。Top-K 候选按标准差优先排序，而标准差最小的 G 自身就有不少于 K 个 F，
+     * 所以最终结果只来自标准差最小的 G，与逐个 G 遍历的结果相同。
+     * 标准差几乎不随 G 变化时（各轴系数相同），排序取决于舍入噪声而不是凸性，此时退回全部 G
+     */
+    private static int[] refineG(int n, StdDevEvaluator evaluator) {
+        if (n <= ADAPTIVE_COARSE_POINTS * 2) {
+            return null;
+        }
+        double[] stdDevs = new double[n];
+        boolean[] evaluated = new boolean[n];
+
+        // 最粗一层：间距取 2 的幂，两端都计算
+        int stride = Integer.highestOneBit((n - 1) / (ADAPTIVE_COARSE_POINTS - 1));
+        int[] level = new int[(n - 1) / stride + 2];
+        int levelSize = 0;
+        for (int i = 0; i < n; i += stride) level[levelSize++] = i;
+        if (level[levelSize - 1] != n - 1) level[levelSize++] = n - 1;
+        evaluateStdDevs(evaluator, level, levelSize, stdDevs, evaluated);
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < levelSize; i++) {
+            min = Math.min(min, stdDevs[level[i]]);
+            max = Math.max(max, stdDevs[level[i]]);
+        }
+        if (!(max - min > ADAPTIVE_FLAT_TOLERANCE * Math.max(max, Double.MIN_NORMAL))) {
+            return null;
+        }
+
+        // 逐层加密：在当前最优的 TOP_K 个格点两侧补算半个间距处
+        int[] next = new int[TOP_K * 2];
+        while (stride > 1) {
+            stride /= 2;
+            int nextSize = 0;
+            for (int c : bestEvaluated(stdDevs, evaluated, TOP_K)) {
+                if (c - stride >= 0 && !evaluated[c - stride]) next[nextSize++] = c - stride;
+                if (c + stride < n && !evaluated[c + stride]) next[nextSize++] = c + stride;
+            }
+            evaluateStdDevs(evaluator, next, nextSize, stdDevs, evaluated);
+        }
+
+        // 计算过的 G 都参与后续 F 的计算，按原顺序排列，使相同排序键的候选先后次序与遍历时一致
+        int count = 0;
+        for (boolean e : evaluated) if (e) count++;
+        int[] selected = new int[count];
+        int pos = 0;
+        for (int i = 0; i < n; i++) {
+            if (evaluated[i]) selected[pos++] = i;
+        }
+        return selected;
+    }
+
+    // 计算指定下标的 G 的标准差，已计算过的下标不再计算
+    private static void evaluateStdDevs(StdDevEvaluator evaluator, int[] indices, int size, double[] stdDevs,
+                                        boolean[] evaluated) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int index = indices[i];
+            if (evaluated[index]) continue;
+            evaluated[index] = true;
+            indices[count++] = index;
+        }
+        if (count > 0) {
+            evaluator.evaluate(indices, count, stdDevs);
+        }
+    }
+
+    // 取出 values 中指定下标的元素
+    private static double[] gather(double[] values, int[] indices, int count) {
+        double[] subset = new double[count];
+        for (int i = 0; i < count; i++) subset[i] = values[indices[i]];
+        return subset;
+    }
+
+    // 已计算的格点中标准差最小的 k 个（相等时下标小的优先）
+    private static int[] bestEvaluated(double[] stdDevs, boolean[] evaluated, int k) {
+        int[] best = new int[k];
+        int size = 0;
+        for (int i = 0; i < stdDevs.length; i++) {
+            if (!evaluated[i]) continue;
+            if (size == k && Double.compare(stdDevs[i], stdDevs[best[k - 1]]) >= 0) continue;
+            int pos = Math.min(size, k - 1);
+            while (pos > 0 && Double.compare(stdDevs[i], stdDevs[best[pos - 1]]) < 0) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = i;
+            if (size < k) size++;
+        }
+        return size == k ? best : Arrays.copyOf(best, size);
+    }
+
+    /**
+     * 1 + D/100 == 0 时 calculateH 恒返回 0（与 F 无关），不能拆成 偏移 + F，逐点计算。
+     * 此时闭式最优 F 没有意义，不按解析模式缩小 F 的范围
+     */
+    private void searchPointwise(double[] groundTemps, double[] carTemps, double C, double D, double E,
+                                 CalculationRequest request, TopKSelector selector) {
+        int targetAxis = request.getTargetAxis();
+        double[] fValues = request.getFValues();
+        double[] baseDiffs = new double[ProbeChannel.AXLE_COUNT];
+        double[] diffs = new double[ProbeChannel.AXLE_COUNT];
+        for (double G : request.getGValueArray()) {
+            computeBaseDiffs(groundTemps, carTemps, C, D, E, G, baseDiffs);
+            double stdDev = calculateStdDev(baseDiffs);
+
+            // 差值与 F 无关，所有 F 的排序键相同，按遍历顺序取候选，各求解方式的结果一致
+            for (double F : fValues) {
+                for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                    double H = calculateH(groundTemps[k], C, D, E, F, G);
+                    diffs[k] = H - carTemps[k];
+                }
+                selector.offer(F, G, stdDev, TopKSelector.secondaryKey(targetAxis, stdDev, diffs), diffs);
+            }
+        }
+    }
+
+    // 单个工作线程的搜索缓冲区
+    private static final class SearchBuffers {
+        final double[] groundTemps = new double[ProbeChannel.AXLE_COUNT];
+        final double[] carTemps = new double[ProbeChannel.AXLE_COUNT];
+        final double[] axleOffsets = new double[ProbeChannel.AXLE_COUNT];
+        final double[] baseDiffs = new double[ProbeChannel.AXLE_COUNT];
+        final double[] diffs = new double[ProbeChannel.AXLE_COUNT];
+        double[] sweepDiffs = new double[0];
+        double[] sweepKeys = new double[0];
+        double[] offsets = new double[0];
+        double[] stdDevs = new double[0];
+
+        void ensureGCapacity(int gCount) {
+            if (stdDevs.length < gCount) {
+                offsets = new double[ProbeChannel.AXLE_COUNT * gCount];
+                stdDevs = new double[gCount];
+            }
+        }
+
+        void ensureFCapacity(int fCount) {
+            if (sweepKeys.length < fCount) {
+                sweepDiffs = new double[ProbeChannel.AXLE_COUNT * fCount];
+                sweepKeys = new double[fCount];
+            }
+        }
+    }
+
+    // 为 selector 中的候选创建 ResultModel
+    private static List<ResultModel> toResultModels(String rowInfo, String remark, CalculationRequest request,
+                                                    TopKSelector selector) {
+        int targetAxis = request.getTargetAxis();
+        List<ResultModel> top = new ArrayList<>(selector.size());
+        for (int i = 0; i < selector.size(); i++) {
+            ResultModel model = new ResultModel();
+            model.setRowInfo(rowInfo);
+            model.setRank(i + 1);
+            model.setF(selector.getF(i));
+            model.setG(selector.getG(i));
+            model.setStdDev(selector.getStdDev(i));
+            model.setDiff3(selector.getDiff(i, 3));
+            model.setDiff4(selector.getDiff(i, 4));
+            model.setDiff5(selector.getDiff(i, 5));
+            model.setDiff6(selector.getDiff(i, 6));
+            model.setTargetDiff(targetAxis > 0 ? selector.getDiff(i, targetAxis) : 0.0);
+            model.setChannel(request.getChannel());
+            model.setRemark(remark);
+            top.add(model);
+        }
+        return top;
+    }
+
+    // 矩阵计算一行的结果，按 requests 的顺序合并
+    private List<ResultModel> toResultModels(int rowNumber, TemperatureData row, List<CalculationRequest> requests,
+                                             double[][] packed) {
+        if (requests.size() == 1) {
+            return toResultModels(rowNumber, row, requests.get(0), packed[0]);
+        }
+        List<ResultModel> rowResults = new ArrayList<>(requests.size() * TOP_K);
+        for (int c = 0; c < requests.size(); c++) {
+            rowResults.addAll(toResultModels(rowNumber, row, requests.get(c), packed[c]));
+        }
+        return rowResults;
+    }
+
+    /**
+     * 只为最终入选的候选创建 ResultModel，packed 为 searchPacked 的结果
+     */
+    private List<ResultModel> toResultModels(int rowNumber, TemperatureData row, CalculationRequest request, double[] packed) {
+        String rowInfo = rowInfo(rowNumber, row);
+        int targetAxis = request.getTargetAxis();
+        String remark = request.getRemark();
+        int count = packed.length / CANDIDATE_FIELDS;
+        List<ResultModel> top = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * CANDIDATE_FIELDS;
+            ResultModel model = new ResultModel();
+            model.setRowInfo(rowInfo);
+            model.setRank(i + 1);
+            model.setF(packed[offset]);
+            model.setG(packed[offset + 1]);
+            model.setStdDev(packed[offset + 2]);
+            model.setDiff3(packed[offset + 3]);
+            model.setDiff4(packed[offset + 4]);
+            model.setDiff5(packed[offset + 5]);
+            model.setDiff6(packed[offset + 6]);
+            // 目标轴的差值 (用于排序)，如果没有选轴位，则默认为0
+            model.setTargetDiff(targetAxis > 0 ? packed[offset + 3 + targetAxis - ProbeChannel.FIRST_AXLE] : 0.0);
+            model.setChannel(request.getChannel());
+            model.setRemark(remark);
+            top.add(model);
+        }
+        return top;
+    }
+
+    // 逐行结果的行信息，如 "行12 [设备A]"
+    static String rowInfo(int rowNumber, TemperatureData row) {
+        return String.format("行%d [%s]", rowNumber, row.getDeviceName());
+    }
+
+    /**
+     * 计算 F=0 时 4 个轴的差值 (H - Z)
+     */
+    private void computeBaseDiffs(double[] groundTemps, double[] carTemps, double C, double D, double E, double G,
+                                  double[] baseDiffs) {
+        for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+            baseDiffs[k] = calculateH(groundTemps[k], C, D, E, 0.0, G) - carTemps[k];
+        }
+    }
+
+    /**
+     * 闭式求解最优 F，返回其在 request.getFValues() 中的下标。
+     * 轴位优选：F = -目标轴差值；全轴优：F = -差值均值
+     */
+    private static int solveOptimalFIndex(double[] baseDiffs, int targetAxis, CalculationRequest request) {
+        double offset;
+        if (targetAxis > 0) {
+            offset = baseDiffs[targetAxis - ProbeChannel.FIRST_AXLE];
+        } else {
+            double sum = 0.0;
+            for (double v : baseDiffs) sum += v;
+            offset = sum / baseDiffs.length;
+        }
+        long step = Math.round(-offset * request.getFStepsPerUnit());
+        return (int) (Math.max(request.getFMinStep(), Math.min(request.getFMaxStep(), step)) - request.getFMinStep());
+    }
+
+    // --- 数学公式 ---
+    public static double calculateH(double A, double C, double D, double E, double F, double G) {
+        double D_pct = D / 100.0;
+        double G_pct = G / 100.0;
+        if (1 + D_pct == 0) return 0.0;
+        double term1 = (1 + G_pct) / (1 + D_pct);
+        double term2 = ((1 + G_pct) * D_pct / (1 + D_pct)) - G_pct;
+        return term1 * (A - C) + term2 * E + F;
+    }
+
+    public static double calculateStdDev(double[] values) {
+        if (values.length == 0) return 0.0;
+        double sum = 0.0;
+        for (double v : values) sum += v;
+        double mean = sum / values.length;
+        double sumSq = 0.0;
+        for (double v : values) sumSq += Math.pow(v - mean, 2);
+        return Math.sqrt(sumSq / values.length);
+    }
+}
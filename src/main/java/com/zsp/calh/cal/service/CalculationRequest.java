@@ -0,0 +1,139 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.TemperatureData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次标定计算的参数：探头通道、板温 E、G 的取值范围、轴位优选、求解方式与网格精度。
+ * 板温可以是所有行共用的固定值，也可以指定板温通道，由每行自己的板温作为 E。
+ * F 的网格为 -F_RANGE ~ F_RANGE，G 的网格为 -G_RANGE ~ G_RANGE，
+ * 步长分别为 1/fStepsPerUnit 和 1/gStepsPerUnit（默认 0.1 和 1）
+ */
+public class CalculationRequest {
+    public static final int F_RANGE = 12;
+    public static final int G_RANGE = 20;
+    public static final int DEFAULT_F_STEPS_PER_UNIT = 10;
+    public static final int DEFAULT_G_STEPS_PER_UNIT = 1;
+
+    private final ProbeChannel channel;
+    private final double plateTemp;
+    // 为 null 时所有行使用 plateTemp
+    private final Channel plateChannel;
+    private final List<Double> gValues;
+    private final double[] gValueArray;
+    private final int targetAxis;
+    private final SolverMode solverMode;
+    private final int fStepsPerUnit;
+    private final int gStepsPerUnit;
+    private final double[] fValues;
+
+    /**
+     * 默认精度（F 0.1，G 1）
+     * @param channel    探头通道 (A/C/D/Z 来源)
+     * @param plateTemp  板温 E
+     * @param selectedG  非线性筛选选中的 G，为 null 时遍历 -20 ~ 20
+     * @param targetAxis 轴位优选 (3-6)，0 表示未选择（全轴优）
+     * @param analytic   是否使用闭式求解 F，否则遍历整个 F 网格
+     */
+    public CalculationRequest(ProbeChannel channel, double plateTemp, Integer selectedG, int targetAxis, boolean analytic) {
+        this(channel, plateTemp, selectedG == null ? null : selectedG.doubleValue(), targetAxis,
+                analytic ? SolverMode.ANALYTIC : SolverMode.GRID, DEFAULT_F_STEPS_PER_UNIT, DEFAULT_G_STEPS_PER_UNIT);
+    }
+
+    /**
+     * @param selectedG     选中的 G，为 null 时按 gStepsPerUnit 遍历 -20 ~ 20
+     * @param solverMode    求解方式
+     * @param fStepsPerUnit F 每 1.0 的格点数，10 表示步长 0.1，100 表示步长 0.01
+     * @param gStepsPerUnit G 每 1 的格点数，1 表示整数，10 表示步长 0.1
+     */
+    public CalculationRequest(ProbeChannel channel, double plateTemp, Double selectedG, int targetAxis,
+                              SolverMode solverMode, int fStepsPerUnit, int gStepsPerUnit) {
+        this(channel, plateTemp, null, selectedG, targetAxis, solverMode, fStepsPerUnit, gStepsPerUnit);
+    }
+
+    /**
+     * @param plateTemp    固定板温 E，plateChannel 不为 null 时不使用
+     * @param plateChannel 板温通道（PLATE_INNER_LEFT 等），每行取该通道的值作为 E；为 null 时使用 plateTemp
+     */
+    public CalculationRequest(ProbeChannel channel, double plateTemp, Channel plateChannel, Double selectedG, int targetAxis,
+                              SolverMode solverMode, int fStepsPerUnit, int gStepsPerUnit) {
+        if (fStepsPerUnit <= 0 || gStepsPerUnit <= 0) {
+            throw new IllegalArgumentException("网格精度必须大于0: F " + fStepsPerUnit + ", G " + gStepsPerUnit);
+        }
+        this.channel = channel;
+        this.plateTemp = plateTemp;
+        this.plateChannel = plateChannel;
+        this.targetAxis = targetAxis;
+        this.solverMode = solverMode;
+        this.fStepsPerUnit = fStepsPerUnit;
+        this.gStepsPerUnit = gStepsPerUnit;
+
+        List<Double> gList = new ArrayList<>();
+        if (selectedG != null) {
+            gList.add(selectedG);
+        } else {
+            for (int i = -G_RANGE * gStepsPerUnit; i <= G_RANGE * gStepsPerUnit; i++) gList.add(i / (double) gStepsPerUnit);
+        }
+        this.gValues = Collections.unmodifiableList(gList);
+        this.gValueArray = gList.stream().mapToDouble(Double::doubleValue).toArray();
+
+        // F 以整数步表示，F = step / fStepsPerUnit，避免累加误差
+        int fMinStep = getFMinStep();
+        this.fValues = new double[getFMaxStep() - fMinStep + 1];
+        for (int i = 0; i < fValues.length; i++) {
+            fValues[i] = (fMinStep + i) / (double) fStepsPerUnit;
+        }
+    }
+
+    /**
+     * 把步长文本（如 "0.1"、"0.01"、"1"）换算为每单位的格点数，步长必须能整除 1
+     */
+    public static int stepsPerUnit(String step) {
+        double value = Double.parseDouble(step.trim());
+        long steps = Math.round(1.0 / value);
+        if (value <= 0 || steps <= 0 || Math.abs(steps * value - 1.0) > 1e-9) {
+            throw new IllegalArgumentException("步长必须是 1 的整数分之一: " + step);
+        }
+        return (int) steps;
+    }
+
+    public ProbeChannel getChannel() { return channel; }
+    public double getPlateTemp() { return plateTemp; }
+    public Channel getPlateChannel() { return plateChannel; }
+    public boolean isRowPlateTemp() { return plateChannel != null; }
+
+    // 该行计算使用的板温 E
+    public double getPlateTemp(TemperatureData row) {
+        return plateChannel == null ? plateTemp : row.get(plateChannel);
+    }
+    public List<Double> getGValues() { return gValues; }
+    // 供数值内核使用的同一组 G，调用方不要修改
+    public double[] getGValueArray() { return gValueArray; }
+    public int getTargetAxis() { return targetAxis; }
+    public boolean isAxisSelected() { return targetAxis > 0; }
+    public SolverMode getSolverMode() { return solverMode; }
+    // 解析和自适应模式都在闭式最优 F 附近取候选
+    public boolean isAnalytic() { return solverMode != SolverMode.GRID; }
+    public boolean isAdaptive() { return solverMode == SolverMode.ADAPTIVE; }
+    public int getFStepsPerUnit() { return fStepsPerUnit; }
+    public int getGStepsPerUnit() { return gStepsPerUnit; }
+    public int getFMinStep() { return -F_RANGE * fStepsPerUnit; }
+    public int getFMaxStep() { return F_RANGE * fStepsPerUnit; }
+    // F 网格上每一步的取值，fValues[i] 对应步数 getFMinStep() + i，调用方不要修改
+    public double[] getFValues() { return fValues; }
+
+    // 备注信息
+    public String getRemark() {
+        return isAxisSelected() ? "优选轴" + targetAxis : "全轴优";
+    }
+
+    // 整体拟合结果的备注信息
+    public String getGlobalRemark() {
+        return getRemark() + " 整体拟合";
+    }
+}
@@ -0,0 +1,73 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.TemperatureData;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 计算会话：保存一次查询的数据行，以及每行在每个 G 下与板温 E 无关的中间量，
+ * 即 term1·(A−C)（各轴）、term2、各轴的 Z 和各轴差值的标准差。
+ * H = term1·(A−C) + term2·E + F，E 只以 term2·E 的形式出现，使各轴差值整体平移，标准差与 E 无关，
+ * 因此只改变板温、轴位优选、求解方式或 F 精度时，由 CalculationEngine 直接用中间量平移各轴差值并重新排序，
+ * 每行每个 G 只做几次加法，不再查询数据库，也不再计算 term1/term2 和标准差，结果与完整计算相同。
+ * 探头/方位或 G 的取值变化时需要新建会话。
+ * <p>
+ * 每行占用 AXLE_COUNT + 1 + (AXLE_COUNT + 2) × G 个数 个 double，总量上限可通过 -Dcal.session.maxValues 调整
+ */
+public class CalculationSession {
+    public static final long DEFAULT_MAX_VALUES = Math.max(1L, Long.getLong("cal.session.maxValues", 20_000_000L));
+
+    // 每行中间量数组的布局：Z[AXLE_COUNT]、D，之后是 term1·(A−C)（[k * gCount + g]）、term2[gCount]，
+    // 最后是标准差[gCount]，见 term2Offset/stdDevOffset
+    static final int Z_OFFSET = 0;
+    static final int D_OFFSET = ProbeChannel.AXLE_COUNT;
+    static final int TERMS_OFFSET = ProbeChannel.AXLE_COUNT + 1;
+
+    private final List<TemperatureData> rows;
+    private final ProbeChannel channel;
+    private final double[] gValues;
+    private final double[][] partials;
+
+    CalculationSession(List<TemperatureData> rows, ProbeChannel channel, double[] gValues, double[][] partials) {
+        this.rows = rows;
+        this.channel = channel;
+        this.gValues = gValues;
+        this.partials = partials;
+    }
+
+    /**
+     * 会话能否用于该计算参数：探头/方位和 G 的取值必须相同
+     */
+    public boolean isCompatible(CalculationRequest request) {
+        return channel == request.getChannel() && Arrays.equals(gValues, request.getGValueArray());
+    }
+
+    /**
+     * 按行数和 G 的个数判断中间量是否超出内存上限，超出时不应创建会话
+     */
+    public static boolean fits(int rowCount, int gCount) {
+        return (long) rowCount * valuesPerRow(gCount) <= DEFAULT_MAX_VALUES;
+    }
+
+    static int valuesPerRow(int gCount) {
+        return TERMS_OFFSET + (ProbeChannel.AXLE_COUNT + 2) * gCount;
+    }
+
+    static int term2Offset(int gCount) {
+        return TERMS_OFFSET + ProbeChannel.AXLE_COUNT * gCount;
+    }
+
+    static int stdDevOffset(int gCount) {
+        return TERMS_OFFSET + (ProbeChannel.AXLE_COUNT + 1) * gCount;
+    }
+
+    public List<TemperatureData> getRows() { return rows; }
+    public int getRowCount() { return rows.size(); }
+    public ProbeChannel getChannel() { return channel; }
+
+    // 第 row 行的中间量，布局见 Z_OFFSET/D_OFFSET/TERMS_OFFSET/term2Offset/stdDevOffset，调用方不要修改
+    double[] getPartials(int row) { return partials[row]; }
+    int getGCount() { return gValues.length; }
+}
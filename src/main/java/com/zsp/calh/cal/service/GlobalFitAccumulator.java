@@ -0,0 +1,93 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+
+/**
+ * 整体拟合的累加器：同一设备（线别 + 设备名）所有行在每个 G 下的差值汇总。
+ * 每行只在加入时计算一次 F=0 的差值，之后评价任意 (F, G) 只用这里的和，与行数无关。
+ * <p>
+ * 对每个 G 保存：行数、各行差值方差之和、各行差值均值之和及平方和、各轴差值之和。
+ * 由此得到所有行、所有轴差值的总体标准差（与 F 无关），以及各轴的平均差值（随 F 平移）。
+ * 累加器可以合并，各线程分别累加后再合并
+ */
+public class GlobalFitAccumulator {
+    private final String lineNumber;
+    private final String deviceName;
+    private final int gCount;
+    private int rowCount;
+    // 各行 4 个轴差值的方差之和
+    private final double[] varianceSums;
+    // 各行差值均值之和、平方和
+    private final double[] meanSums;
+    private final double[] meanSquareSums;
+    // 各轴差值之和，[k * gCount + g]
+    private final double[] axleSums;
+
+    public GlobalFitAccumulator(String lineNumber, String deviceName, int gCount) {
+        this.lineNumber = lineNumber;
+        this.deviceName = deviceName;
+        this.gCount = gCount;
+        this.varianceSums = new double[gCount];
+        this.meanSums = new double[gCount];
+        this.meanSquareSums = new double[gCount];
+        this.axleSums = new double[ProbeChannel.AXLE_COUNT * gCount];
+    }
+
+    /**
+     * 加入一行
+     * @param baseDiffs 该行 F=0 时各轴差值，[k * gCount + g]
+     * @param stdDevs   该行每个 G 下 4 个轴差值的标准差
+     */
+    public void addRow(double[] baseDiffs, double[] stdDevs) {
+        for (int g = 0; g < gCount; g++) {
+            double sum = 0.0;
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                double diff = baseDiffs[k * gCount + g];
+                axleSums[k * gCount + g] += diff;
+                sum += diff;
+            }
+            double mean = sum / ProbeChannel.AXLE_COUNT;
+            varianceSums[g] += stdDevs[g] * stdDevs[g];
+            meanSums[g] += mean;
+            meanSquareSums[g] += mean * mean;
+        }
+        rowCount++;
+    }
+
+    /**
+     * 把另一个累加器（同一设备、同一组 G）的和并入本累加器
+     */
+    public void merge(GlobalFitAccumulator other) {
+        for (int g = 0; g < gCount; g++) {
+            varianceSums[g] += other.varianceSums[g];
+            meanSums[g] += other.meanSums[g];
+            meanSquareSums[g] += other.meanSquareSums[g];
+        }
+        for (int i = 0; i < axleSums.length; i++) {
+            axleSums[i] += other.axleSums[i];
+        }
+        rowCount += other.rowCount;
+    }
+
+    /**
+     * 第 g 个 G 下所有行、所有轴差值的总体标准差：
+     * 总方差 = 各行方差的均值 + 各行均值的方差。F 使所有差值整体平移，不影响该值
+     */
+    public double getStdDev(int g) {
+        if (rowCount == 0) return 0.0;
+        double meanOfMeans = meanSums[g] / rowCount;
+        double varianceOfMeans = Math.max(0.0, meanSquareSums[g] / rowCount - meanOfMeans * meanOfMeans);
+        return Math.sqrt(varianceSums[g] / rowCount + varianceOfMeans);
+    }
+
+    /**
+     * 第 g 个 G 下 F=0 时轴 (FIRST_AXLE + k) 的平均差值
+     */
+    public double getMeanDiff(int g, int k) {
+        return rowCount == 0 ? 0.0 : axleSums[k * gCount + g] / rowCount;
+    }
+
+    public String getLineNumber() { return lineNumber; }
+    public String getDeviceName() { return deviceName; }
+    public int getRowCount() { return rowCount; }
+}
@@ -0,0 +1,57 @@
+package com.zsp.calh.cal.service;
+
+/**
+ * F/G 网格搜索的数值内核：批量计算 H 与各轴差值，不涉及 Top-K 选择。
+ * 所有实现必须与 CalculationEngine.calculateH / calculateStdDev 的逐点计算逐位一致
+ * （相同的运算顺序，不使用 FMA），这样换用内核不会改变排序结果。
+ * 调用方保证 1 + D/100 != 0（此时 H 恒为 0，由调用方逐点处理）
+ */
+public interface GridKernel {
+    /**
+     * 系统属性 cal.vector=true 时尝试使用 Vector API 内核，不可用时退回标量内核。
+     * 该内核在单独的模块 com.zsp.calh.cal.vector 中（mvn -Pvector 编译到 target/vector-classes），
+     * 主模块不依赖孵化模块；运行时需要把它加入模块路径，并加上
+     * --add-modules jdk.incubator.vector,com.zsp.calh.cal.vector
+     */
+    String VECTOR_PROPERTY = "cal.vector";
+    String VECTOR_KERNEL_CLASS = "com.zsp.calh.cal.service.vector.VectorGridKernel";
+
+    /**
+     * 对每个 G 计算各轴不含 F 的 H 值，以及 4 个轴差值的总体标准差。
+     * F 和 term2·E 都使 4 个轴的差值整体平移，不改变标准差，标准差按 F=0、E=0 的差值 term1·(A−C) − Z 计算，
+     * 与板温无关，CalculationSession 可以缓存
+     * @param groundTemps 轴3-6 的地面温度 A
+     * @param carTemps    轴3-6 的车上温度 Z
+     * @param gValues     G 的取值
+     * @param offsetsOut  输出：offsetsOut[k * gValues.length + g] = term1 * (A_k - C) + term2 * E
+     * @param stdDevsOut  输出：每个 G 的标准差，即 calculateStdDev(calculateH(A_k, C, D, 0, 0, G) − Z_k)
+     */
+    void evaluateG(double[] groundTemps, double[] carTemps, double C, double D, double E, double[] gValues,
+                   double[] offsetsOut, double[] stdDevsOut);
+
+    /**
+     * 对一个 G 下连续的 count 个 F 计算各轴差值和排序的第二关键字
+     * @param axleOffsets 该 G 下各轴不含 F 的 H 值（evaluateG 的输出）
+     * @param carTemps    轴3-6 的车上温度 Z
+     * @param fValues     F 的取值表，使用 [from, from + count) 部分
+     * @param diffsOut    输出：diffsOut[k * count + j] = (axleOffsets[k] + F_j) - Z_k
+     * @param keysOut     输出：第 j 个 F 的第二关键字，同 TopKSelector.secondaryKey
+     */
+    void sweepF(double[] axleOffsets, double[] carTemps, double[] fValues, int from, int count,
+                int targetAxis, double stdDev, double[] diffsOut, double[] keysOut);
+
+    /**
+     * 按系统属性选择内核
+     */
+    static GridKernel create() {
+        if (Boolean.getBoolean(VECTOR_PROPERTY)) {
+            try {
+                // 反射加载：未加载 jdk.incubator.vector 模块时这里会失败，而不是在类加载时失败
+                return (GridKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Vector API 内核不可用，使用标量内核: " + e);
+            }
+        }
+        return new ScalarGridKernel();
+    }
+}
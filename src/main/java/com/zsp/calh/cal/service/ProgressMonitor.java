@@ -0,0 +1,34 @@
+package com.zsp.calh.cal.service;
+
+/**
+ * 长时间运行操作（导入、查询、计算）的进度回调和取消检查。
+ * 可以在任意线程调用，实现方负责切换到界面线程
+ */
+public interface ProgressMonitor {
+    /**
+     * 不报告进度、不可取消
+     */
+    ProgressMonitor NONE = new ProgressMonitor() {
+        @Override
+        public void update(long workDone, long totalWork, String message) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * 报告进度
+     * @param workDone  已完成的工作量
+     * @param totalWork 总工作量，未知时传入 -1
+     * @param message   显示给用户的进度说明
+     */
+    void update(long workDone, long totalWork, String message);
+
+    /**
+     * 用户是否已请求取消，耗时操作应定期检查并尽快停止
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,126 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+
+import java.util.List;
+
+/**
+ * 逐行计算结果的列式缓冲区：每个候选在 values 中占 CANDIDATE_FIELDS 个 double
+ * （F, G, 标准差, 轴3-6差值，与计算缓存的格式相同），在 rowIndices/comboIndices/ranks 中各占一个 int，
+ * 不为候选创建对象。行信息在追加该行时格式化一次，存放在按数据行下标排列的 rowInfos 中，
+ * 表格重绘时直接读取；备注取自计算参数。
+ * <p>
+ * 容量按 行数 × 组合数 × TOP_K 一次分配。CalculationEngine 按行号顺序追加（同一时刻只有一个线程追加），
+ * 其他线程可以同时读取 size() 以内的条目
+ */
+public class ResultBuffer implements ResultColumns {
+    private static final int FIELDS = CalculationEngine.CANDIDATE_FIELDS;
+
+    private final List<TemperatureData> rows;
+    private final List<CalculationRequest> requests;
+    private final double[] values;
+    private final int[] rowIndices;
+    private final int[] comboIndices;
+    private final int[] ranks;
+    // 第 i 个数据行的行信息，追加该行结果时生成
+    private final String[] rowInfos;
+    // 已追加的条目数，先写入条目再增加，读取方看到的条目都已写完
+    private volatile int size;
+
+    /**
+     * @param rows     计算的数据行，条目通过行下标引用
+     * @param requests 每组参数（探头/方位组合）的计算参数，条目通过组合下标引用
+     */
+    public ResultBuffer(List<TemperatureData> rows, List<CalculationRequest> requests) {
+        long capacity = (long) rows.size() * requests.size() * CalculationEngine.TOP_K;
+        if (capacity * FIELDS > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("结果过多，无法放入结果缓冲区: " + rows.size() + " 行 × " + requests.size() + " 个组合");
+        }
+        this.rows = rows;
+        this.requests = requests;
+        this.values = new double[(int) capacity * FIELDS];
+        this.rowIndices = new int[(int) capacity];
+        this.comboIndices = new int[(int) capacity];
+        this.ranks = new int[(int) capacity];
+        this.rowInfos = new String[rows.size()];
+    }
+
+    /**
+     * 追加一行的结果，packed[c] 为第 c 组参数的候选（searchPacked 的格式），按排名排列
+     */
+    void addRow(int rowIndex, double[][] packed) {
+        // 在增加 size 之前写入，读取方看到条目时行信息已经生成
+        if (rowInfos[rowIndex] == null) rowInfos[rowIndex] = CalculationEngine.rowInfo(rowIndex + 1, rows.get(rowIndex));
+        int n = size;
+        for (int c = 0; c < packed.length; c++) {
+            int count = packed[c].length / FIELDS;
+            System.arraycopy(packed[c], 0, values, n * FIELDS, packed[c].length);
+            for (int i = 0; i < count; i++) {
+                rowIndices[n + i] = rowIndex;
+                comboIndices[n + i] = c;
+                ranks[n + i] = i + 1;
+            }
+            n += count;
+        }
+        size = n;
+    }
+
+    public int size() { return size; }
+    public List<TemperatureData> getRows() { return rows; }
+    public List<CalculationRequest> getRequests() { return requests; }
+
+    public int getRowIndex(int index) { return rowIndices[index]; }
+    @Override public int getRank(int index) { return ranks[index]; }
+    @Override public ProbeChannel getChannel(int index) { return request(index).getChannel(); }
+    @Override public double getF(int index) { return values[index * FIELDS]; }
+    @Override public double getG(int index) { return values[index * FIELDS + 1]; }
+    @Override public double getStdDev(int index) { return values[index * FIELDS + 2]; }
+
+    // axle 为轴位 3-6
+    @Override
+    public double getDiff(int index, int axle) {
+        return values[index * FIELDS + 3 + axle - ProbeChannel.FIRST_AXLE];
+    }
+
+    // 目标轴的差值，没有选轴位时为 0
+    public double getTargetDiff(int index) {
+        int targetAxis = request(index).getTargetAxis();
+        return targetAxis > 0 ? getDiff(index, targetAxis) : 0.0;
+    }
+
+    @Override
+    public String getRowInfo(int index) {
+        return rowInfos[rowIndices[index]];
+    }
+
+    @Override
+    public String getRemark(int index) {
+        return request(index).getRemark();
+    }
+
+    /**
+     * 为第 index 个条目生成 ResultModel，只在确实需要对象时调用；表格通过 ResultColumns 直接读取各列
+     */
+    public ResultModel toResultModel(int index) {
+        ResultModel model = new ResultModel();
+        model.setRowInfo(getRowInfo(index));
+        model.setRank(getRank(index));
+        model.setF(getF(index));
+        model.setG(getG(index));
+        model.setStdDev(getStdDev(index));
+        model.setDiff3(getDiff(index, 3));
+        model.setDiff4(getDiff(index, 4));
+        model.setDiff5(getDiff(index, 5));
+        model.setDiff6(getDiff(index, 6));
+        model.setTargetDiff(getTargetDiff(index));
+        model.setChannel(getChannel(index));
+        model.setRemark(getRemark(index));
+        return model;
+    }
+
+    private CalculationRequest request(int index) {
+        return requests.get(comboIndices[index]);
+    }
+}
@@ -0,0 +1,52 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+
+import java.util.List;
+
+/**
+ * 按条目下标读取计算结果的各列。结果表格以条目下标为行，每列的取值函数直接调用这里的方法，
+ * 表格重绘时不为条目创建 ResultModel。ResultBuffer 直接从数组中读取；
+ * 整体拟合的结果很少，由 of 包装成同样的读取方式
+ */
+public interface ResultColumns {
+    String getRowInfo(int index);
+    ProbeChannel getChannel(int index);
+    int getRank(int index);
+    double getF(int index);
+    double getG(int index);
+    double getStdDev(int index);
+
+    // axle 为轴位 3-6
+    double getDiff(int index, int axle);
+
+    String getRemark(int index);
+
+    /**
+     * 以 results 中的下标读取各条结果
+     */
+    static ResultColumns of(List<ResultModel> results) {
+        return new ResultColumns() {
+            @Override public String getRowInfo(int index) { return results.get(index).getRowInfo(); }
+            @Override public ProbeChannel getChannel(int index) { return results.get(index).getChannel(); }
+            @Override public int getRank(int index) { return results.get(index).getRank(); }
+            @Override public double getF(int index) { return results.get(index).getF(); }
+            @Override public double getG(int index) { return results.get(index).getG(); }
+            @Override public double getStdDev(int index) { return results.get(index).getStdDev(); }
+            @Override public String getRemark(int index) { return results.get(index).getRemark(); }
+
+            @Override
+            public double getDiff(int index, int axle) {
+                ResultModel result = results.get(index);
+                switch (axle) {
+                    case 3: return result.getDiff3();
+                    case 4: return result.getDiff4();
+                    case 5: return result.getDiff5();
+                    case 6: return result.getDiff6();
+                    default: throw new IllegalArgumentException("轴位必须为 3-6: " + axle);
+                }
+            }
+        };
+    }
+}
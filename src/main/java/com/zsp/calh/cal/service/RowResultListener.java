@@ -0,0 +1,18 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ResultModel;
+
+import java.util.List;
+
+/**
+ * 逐行接收计算结果。CalculationEngine 按行号顺序调用，
+ * 调用发生在计算线程上且持有引擎内部的锁，实现应尽快返回（例如只放入队列）
+ */
+@FunctionalInterface
+public interface RowResultListener {
+    /**
+     * @param rowIndex   行下标（从0开始）
+     * @param rowResults 该行的 Top-K 结果，已排好序
+     */
+    void onRowCompleted(int rowIndex, List<ResultModel> rowResults);
+}
@@ -0,0 +1,42 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+
+/**
+ * 标量内核，逐个 G、逐个 F 计算，是其他内核的参照实现
+ */
+public class ScalarGridKernel implements GridKernel {
+    @Override
+    public void evaluateG(double[] groundTemps, double[] carTemps, double C, double D, double E, double[] gValues,
+                          double[] offsetsOut, double[] stdDevsOut) {
+        int gCount = gValues.length;
+        double D_pct = D / 100.0;
+        double[] baseDiffs = new double[ProbeChannel.AXLE_COUNT];
+        for (int g = 0; g < gCount; g++) {
+            // 与 calculateH 相同的表达式，只是去掉了最后加 F 的一步
+            double G_pct = gValues[g] / 100.0;
+            double term1 = (1 + G_pct) / (1 + D_pct);
+            double term2 = ((1 + G_pct) * D_pct / (1 + D_pct)) - G_pct;
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                double shape = term1 * (groundTemps[k] - C);
+                offsetsOut[k * gCount + g] = shape + term2 * E;
+                // term2·E 使各轴整体平移，不改变标准差，按 E=0 计算
+                baseDiffs[k] = shape - carTemps[k];
+            }
+            stdDevsOut[g] = CalculationEngine.calculateStdDev(baseDiffs);
+        }
+    }
+
+    @Override
+    public void sweepF(double[] axleOffsets, double[] carTemps, double[] fValues, int from, int count,
+                       int targetAxis, double stdDev, double[] diffsOut, double[] keysOut) {
+        for (int j = 0; j < count; j++) {
+            double F = fValues[from + j];
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                diffsOut[k * count + j] = (axleOffsets[k] + F) - carTemps[k];
+            }
+            keysOut[j] = TopKSelector.secondaryKey(targetAxis, stdDev, diffsOut[j], diffsOut[count + j],
+                    diffsOut[2 * count + j], diffsOut[3 * count + j]);
+        }
+    }
+}
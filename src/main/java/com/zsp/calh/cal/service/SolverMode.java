@@ -0,0 +1,57 @@
+package com.zsp.calh.cal.service;
+
+/**
+ * 求解方式
+ */
+public enum SolverMode {
+    /** 遍历整个 F/G 网格 */
+    GRID("网格遍历", "grid"),
+    /** 遍历所有 G，F 在闭式最优解附近取候选 */
+    ANALYTIC("解析求F", "analytic"),
+    /** 先在粗网格上比较各 G 的标准差，再在最优的几个格点附近逐级加密到要求的精度；F 同解析模式 */
+    ADAPTIVE("自适应细化", "adaptive");
+
+    private final String label;
+    private final String option;
+
+    SolverMode(String label, String option) {
+        this.label = label;
+        this.option = option;
+    }
+
+    /**
+     * 界面显示的名称
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 命令行参数 --solver 的取值
+     */
+    public String getOption() {
+        return option;
+    }
+
+    /**
+     * 按界面名称查找，找不到时返回 ANALYTIC
+     */
+    public static SolverMode fromLabel(String label) {
+        for (SolverMode mode : values()) {
+            if (mode.label.equals(label)) return mode;
+        }
+        return ANALYTIC;
+    }
+
+    /**
+     * 按命令行参数查找，未给出参数（null）时返回 ANALYTIC
+     * @throws IllegalArgumentException 参数不是任何一种求解方式
+     */
+    public static SolverMode fromOption(String option) {
+        if (option == null) return ANALYTIC;
+        for (SolverMode mode : values()) {
+            if (mode.option.equalsIgnoreCase(option)) return mode;
+        }
+        throw new IllegalArgumentException("未知的求解方式: " + option);
+    }
+}
@@ -0,0 +1,118 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+
+/**
+ * 定长 Top-K 选择器：候选以原始数值 (F, G, 标准差, 第二关键字, 4 轴差值) 存放在数组中，
+ * 只保留当前最优的 K 个，不为落选的候选创建对象。
+ * 排序规则与原 stream().sorted(comparator).limit(K) 一致：
+ * 先按标准差升序，再按第二关键字升序，两者都相同时先加入的排在前面（稳定排序）
+ */
+public class TopKSelector {
+    private final int capacity;
+    private final double[] fValues;
+    private final double[] gValues;
+    private final double[] stdDevs;
+    private final double[] secondaryKeys;
+    private final double[] diffs; // 每个候选占 AXLE_COUNT 个位置
+    private int size;
+
+    public TopKSelector(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.fValues = new double[capacity];
+        this.gValues = new double[capacity];
+        this.stdDevs = new double[capacity];
+        this.secondaryKeys = new double[capacity];
+        this.diffs = new double[capacity * ProbeChannel.AXLE_COUNT];
+    }
+
+    /**
+     * 清空已选结果，以便处理下一行
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * 第二关键字：轴位优选模式为目标轴差值的绝对值，全轴优模式为 均值绝对值 + 标准差
+     * @param targetAxis 目标轴位 (3-6)，0 表示全轴优
+     */
+    public static double secondaryKey(int targetAxis, double stdDev, double[] axleDiffs) {
+        return secondaryKey(targetAxis, stdDev, axleDiffs[0], axleDiffs[1], axleDiffs[2], axleDiffs[3]);
+    }
+
+    /**
+     * 同上，4 个轴的差值分别传入，调用方不需要为每个候选准备数组
+     */
+    public static double secondaryKey(int targetAxis, double stdDev, double diff3, double diff4, double diff5, double diff6) {
+        switch (targetAxis) {
+            case 3: return Math.abs(diff3);
+            case 4: return Math.abs(diff4);
+            case 5: return Math.abs(diff5);
+            case 6: return Math.abs(diff6);
+            default:
+                double mean = (diff3 + diff4 + diff5 + diff6) / 4.0;
+                return Math.abs(mean) + stdDev;
+        }
+    }
+
+    /**
+     * 该候选提交后能否进入当前 Top-K，调用方可以据此跳过落选候选的准备工作
+     */
+    public boolean accepts(double stdDev, double secondaryKey) {
+        return size < capacity || compare(stdDev, secondaryKey, size - 1) < 0;
+    }
+
+    /**
+     * 提交一个候选
+     * @param axleDiffs 轴3-6 的差值，会被复制，调用方可以复用该数组
+     * @return 候选是否进入了当前 Top-K
+     */
+    public boolean offer(double f, double g, double stdDev, double secondaryKey, double[] axleDiffs) {
+        // 已满且不优于末位时直接丢弃（相等时后来者排在后面，同样落选）
+        if (size == capacity && compare(stdDev, secondaryKey, size - 1) >= 0) {
+            return false;
+        }
+
+        // 从末尾向前找插入位置，相等的已有候选保持在前
+        int pos = Math.min(size, capacity - 1);
+        while (pos > 0 && compare(stdDev, secondaryKey, pos - 1) < 0) {
+            copy(pos - 1, pos);
+            pos--;
+        }
+
+        fValues[pos] = f;
+        gValues[pos] = g;
+        stdDevs[pos] = stdDev;
+        secondaryKeys[pos] = secondaryKey;
+        System.arraycopy(axleDiffs, 0, diffs, pos * ProbeChannel.AXLE_COUNT, ProbeChannel.AXLE_COUNT);
+        if (size < capacity) size++;
+        return true;
+    }
+
+    public int size() { return size; }
+    public double getF(int index) { return fValues[index]; }
+    public double getG(int index) { return gValues[index]; }
+    public double getStdDev(int index) { return stdDevs[index]; }
+
+    // axle 为轴位 3-6
+    public double getDiff(int index, int axle) {
+        return diffs[index * ProbeChannel.AXLE_COUNT + axle - ProbeChannel.FIRST_AXLE];
+    }
+
+    private int compare(double stdDev, double secondaryKey, int index) {
+        int c = Double.compare(stdDev, stdDevs[index]);
+        return c != 0 ? c : Double.compare(secondaryKey, secondaryKeys[index]);
+    }
+
+    private void copy(int from, int to) {
+        fValues[to] = fValues[from];
+        gValues[to] = gValues[from];
+        stdDevs[to] = stdDevs[from];
+        secondaryKeys[to] = secondaryKeys[from];
+        System.arraycopy(diffs, from * ProbeChannel.AXLE_COUNT, diffs, to * ProbeChannel.AXLE_COUNT, ProbeChannel.AXLE_COUNT);
+    }
+}
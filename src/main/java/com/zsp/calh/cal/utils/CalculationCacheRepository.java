@@ -0,0 +1,135 @@
+package com.zsp.calh.cal.utils;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * calc_cache 表的读写。每条记录是一个输入指纹对应的结果数组，数组按 double 序列存为 BLOB。
+ * 表中记录数超过上限时删除最早写入的记录，上限可通过 -Dcal.cache.maxRows 调整
+ */
+public class CalculationCacheRepository {
+    public static final String TABLE_NAME = DatabaseManager.CALC_CACHE_TABLE_NAME;
+    public static final int DEFAULT_MAX_ROWS = Math.max(1, Integer.getInteger("cal.cache.maxRows", 500_000));
+
+    // 每条 IN 查询的参数个数，低于 SQLite 的参数个数限制
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    private final DatabaseManager dbManager;
+    private final int maxRows;
+
+    public CalculationCacheRepository(DatabaseManager dbManager) {
+        this(dbManager, DEFAULT_MAX_ROWS);
+    }
+
+    public CalculationCacheRepository(DatabaseManager dbManager, int maxRows) {
+        this.dbManager = dbManager;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 批量查找，返回命中的 键 -> 结果数组，未命中的键不出现在结果中
+     */
+    public Map<String, double[]> findAll(Collection<String> keys) throws SQLException {
+        if (keys.isEmpty()) return Collections.emptyMap();
+        Map<String, double[]> found = new HashMap<>();
+        List<String> keyList = new ArrayList<>(keys);
+        try (DatabaseManager.ReadConnection conn = dbManager.acquireReadConnection()) {
+            for (int from = 0; from < keyList.size(); from += LOOKUP_BATCH_SIZE) {
+                List<String> batch = keyList.subList(from, Math.min(keyList.size(), from + LOOKUP_BATCH_SIZE));
+                String sql = "SELECT cache_key, results FROM " + TABLE_NAME
+                        + " WHERE cache_key IN (" + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        pstmt.setString(i + 1, batch.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            found.put(rs.getString(1), decode(rs.getBytes(2)));
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 在一个事务中写入多条记录（已存在的键覆盖），然后淘汰超出上限的旧记录
+     */
+    public void saveAll(Map<String, double[]> entries) throws SQLException {
+        if (entries.isEmpty()) return;
+        String sql = "INSERT OR REPLACE INTO " + TABLE_NAME + " (cache_key, results, created_at) VALUES (?, ?, ?)";
+        long now = System.currentTimeMillis();
+        // 整个事务持有写连接，不与导入等其他写操作交错
+        try (DatabaseManager.WriteConnection writer = dbManager.acquireWriteConnection()) {
+            Connection conn = writer.getConnection();
+            boolean originalAutoCommit = conn.getAutoCommit();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                conn.setAutoCommit(false);
+                for (Map.Entry<String, double[]> entry : entries.entrySet()) {
+                    pstmt.setString(1, entry.getKey());
+                    pstmt.setBytes(2, encode(entry.getValue()));
+                    pstmt.setLong(3, now);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                evictOldest(conn);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(originalAutoCommit);
+            }
+        }
+    }
+
+    /**
+     * 清空缓存表
+     */
+    public void clear() throws SQLException {
+        try (DatabaseManager.WriteConnection writer = dbManager.acquireWriteConnection();
+             PreparedStatement pstmt = writer.prepareStatement("DELETE FROM " + TABLE_NAME)) {
+            pstmt.executeUpdate();
+        }
+    }
+
+    public int count() throws SQLException {
+        try (DatabaseManager.ReadConnection conn = dbManager.acquireReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM " + TABLE_NAME);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // 超出上限时按 created_at 删除最早的记录
+    private void evictOldest(Connection conn) throws SQLException {
+        String sql = "DELETE FROM " + TABLE_NAME + " WHERE cache_key IN (SELECT cache_key FROM " + TABLE_NAME
+                + " ORDER BY created_at LIMIT MAX(0, (SELECT COUNT(*) FROM " + TABLE_NAME + ") - ?))";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, maxRows);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static byte[] encode(double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static double[] decode(byte[] bytes) {
+        double[] values = new double[bytes.length / Double.BYTES];
+        ByteBuffer.wrap(bytes).asDoubleBuffer().get(values);
+        return values;
+    }
+}
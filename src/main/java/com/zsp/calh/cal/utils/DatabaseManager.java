@@ -3,20 +3,76 @@
 package com.zsp.calh.cal.utils;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class DatabaseManager {
+    // 只读连接池大小，可通过 -Dcal.db.readPoolSize 调整
+    public static final int DEFAULT_READ_POOL_SIZE = Math.max(1, Integer.getInteger("cal.db.readPoolSize", 2));
+
+    // 温度数据表名
+    public static final String TEMPERATURE_TABLE_NAME = "temperature_data";
+    // 计算结果缓存表名
+    public static final String CALC_CACHE_TABLE_NAME = "calc_cache";
+
+    /**
+     * 按版本号顺序排列的迁移步骤。已发布的步骤不要修改，新的变更追加到末尾
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "创建温度数据表",
+                    buildTemperatureTableSQL(TEMPERATURE_TABLE_NAME)),
+            // 联动下拉框的 DISTINCT 查询：每个 (目标列 | 筛选列) 组合都能由某个索引的前缀覆盖，
+            // 配合原有的 UNIQUE(line_number, date, device_name) 全部变为只扫描索引
+            new Migration(2, "为联动筛选添加覆盖索引",
+                    "CREATE INDEX IF NOT EXISTS idx_temperature_line_device_date ON " + TEMPERATURE_TABLE_NAME + " (line_number, device_name, date)",
+                    "CREATE INDEX IF NOT EXISTS idx_temperature_device_date_line ON " + TEMPERATURE_TABLE_NAME + " (device_name, date, line_number)",
+                    "CREATE INDEX IF NOT EXISTS idx_temperature_date_line_device ON " + TEMPERATURE_TABLE_NAME + " (date, line_number, device_name)",
+                    "CREATE INDEX IF NOT EXISTS idx_temperature_date_device_line ON " + TEMPERATURE_TABLE_NAME + " (date, device_name, line_number)",
+                    "ANALYZE " + TEMPERATURE_TABLE_NAME),
+            // 键是输入指纹（行的 A/C/D/Z 与计算参数的哈希），数据变化后键随之变化，旧记录按时间淘汰
+            new Migration(3, "创建计算结果缓存表",
+                    "CREATE TABLE IF NOT EXISTS " + CALC_CACHE_TABLE_NAME + " ("
+                            + "cache_key TEXT PRIMARY KEY, "
+                            + "results BLOB NOT NULL, "
+                            + "created_at INTEGER NOT NULL)",
+                    "CREATE INDEX IF NOT EXISTS idx_calc_cache_created_at ON " + CALC_CACHE_TABLE_NAME + " (created_at)")
+    );
+
     // 单例实例
     private static DatabaseManager instance;
+    // 唯一的写连接，只能在持有 writeLock 时使用（见 acquireWriteConnection）
     private Connection connection;
+    // 导入、计算缓存、批量计算等不同线程的写操作共用写连接，
+    // 不加锁时一个线程的 setAutoCommit/commit/rollback 会落在另一个线程的事务中
+    private final ReentrantLock writeLock = new ReentrantLock();
     private final String dbUrl;
+    private final PragmaProfile profile;
+
+    // 只读连接池：每借出一个连接占用一个许可，最多 readPoolSize 个；空闲连接在 idleReadConnections 中，按需创建。
+    // idleReadConnections、readConnections 和 closed 都由 readConnections 的锁保护
+    private final int readPoolSize;
+    private final Semaphore readPermits;
+    private final Deque<Connection> idleReadConnections = new ArrayDeque<>();
+    private final List<Connection> readConnections = new ArrayList<>();
+    private boolean closed;
+    // temperature_data 的数据版本，每次写入新数据后递增
+    private final AtomicLong dataVersion = new AtomicLong();
 
     // 私有构造函数，防止外部实例化
     private DatabaseManager(String dbPath) {
         this.dbUrl = "jdbc:sqlite:" + dbPath;
-        // 在构造时就尝试连接
+        this.profile = PragmaProfile.fromSystemProperty();
+        this.readPoolSize = DEFAULT_READ_POOL_SIZE;
+        this.readPermits = new Semaphore(readPoolSize, true);
+        // 在构造时就尝试连接，并把表结构升级到最新版本
         try {
             connect();
+            migrate();
         } catch (SQLException e) {
             System.err.println("数据库初始化连接失败: " + e.getMessage());
             // 抛出运行时异常，因为如果数据库无法连接，程序可能无法正常运行
@@ -55,31 +111,69 @@ public class DatabaseManager {
     private void connect() throws SQLException {
         if (connection == null || connection.isClosed()) {
             connection = DriverManager.getConnection(dbUrl);
-            System.out.println("已连接到SQLite数据库: " + dbUrl);
+            profile.applyToWriter(connection);
+            closed = false;
+            System.out.println("已连接到SQLite数据库: " + dbUrl + "（参数配置 " + profile + "）");
         }
     }
 
     /**
-     * 关闭数据库连接。此方法应在应用程序关闭时调用。
+     * 关闭数据库连接（包括只读连接池）。此方法应在应用程序关闭时调用。
      */
     public void disconnect() {
-        if (connection != null) {
-            try {
-                if (!connection.isClosed()) {
-                    connection.close();
-                    System.out.println("已关闭SQLite数据库连接。");
+        synchronized (readConnections) {
+            closed = true;
+            for (Connection readConnection : readConnections) {
+                try {
+                    readConnection.close();
+                } catch (SQLException e) {
+                    System.err.println("关闭只读连接时出错: " + e.getMessage());
                 }
-            } catch (SQLException e) {
-                System.err.println("关闭数据库连接时出错: " + e.getMessage());
             }
+            readConnections.clear();
+            idleReadConnections.clear();
+        }
+        // 唤醒正在等待只读连接的线程，它们看到连接池已关闭后抛出 SQLException
+        readPermits.release(readPoolSize);
+        // 等待正在进行的写事务结束后再关闭写连接
+        writeLock.lock();
+        try {
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
+                System.out.println("已关闭SQLite数据库连接。");
+            }
+        } catch (SQLException e) {
+            System.err.println("关闭数据库连接时出错: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
         }
     }
 
     /**
-     * 获取数据库连接对象。如果连接已关闭，会尝试重新连接。
+     * 独占唯一的写连接，用完后调用 close() 释放（不会真正关闭连接）。
+     * 持有期间其他线程的写操作等待；事务必须在释放前提交或回滚，并恢复自动提交。
+     * 同一线程可以嵌套获取
+     */
+    public WriteConnection acquireWriteConnection() throws SQLException {
+        try {
+            writeLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待写连接时被中断", e);
+        }
+        try {
+            return new WriteConnection(getConnection());
+        } catch (SQLException | RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取写连接对象，调用方必须持有 writeLock。如果连接已关闭，会尝试重新连接。
      * @return 数据库连接对象
      */
-    public Connection getConnection() throws SQLException {
+    private Connection getConnection() throws SQLException {
         // 增加健壮性，如果连接因故关闭，尝试重连
         if (connection == null || connection.isClosed()) {
             connect();
@@ -87,8 +181,254 @@ public class DatabaseManager {
         return connection;
     }
 
+    /**
+     * 温度数据表的建表语句，迁移步骤和导入时的建表共用。
+     * 联合唯一约束 (line_number, date, device_name) 防止重复导入
+     */
+    public static String buildTemperatureTableSQL(String tableName) {
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "line_number TEXT, device_name TEXT, date TEXT, "
+                + "car_temp_left3 REAL, car_temp_left4 REAL, car_temp_left5 REAL, car_temp_left6 REAL, "
+                + "car_temp_right3 REAL, car_temp_right4 REAL, car_temp_right5 REAL, car_temp_right6 REAL, "
+                + "ground_temp1_left3 REAL, ground_temp1_left4 REAL, ground_temp1_left5 REAL, ground_temp1_left6 REAL, "
+                + "ground_temp1_right3 REAL, ground_temp1_right4 REAL, ground_temp1_right5 REAL, ground_temp1_right6 REAL, "
+                + "ground_temp2_left3 REAL, ground_temp2_left4 REAL, ground_temp2_left5 REAL, ground_temp2_left6 REAL, "
+                + "ground_temp2_right3 REAL, ground_temp2_right4 REAL, ground_temp2_right5 REAL, ground_temp2_right6 REAL, "
+                + "ground_temp3_left3 REAL, ground_temp3_left4 REAL, ground_temp3_left5 REAL, ground_temp3_left6 REAL, "
+                + "ground_temp3_right3 REAL, ground_temp3_right4 REAL, ground_temp3_right5 REAL, ground_temp3_right6 REAL, "
+                + "ground_temp4_left3 REAL, ground_temp4_left4 REAL, ground_temp4_left5 REAL, ground_temp4_left6 REAL, "
+                + "ground_temp4_right3 REAL, ground_temp4_right4 REAL, ground_temp4_right5 REAL, ground_temp4_right6 REAL, "
+                + "linear_value_temp1left REAL, linear_value_temp1right REAL, linear_value_temp2left REAL, linear_value_temp2right REAL, "
+                + "linear_value_temp3left REAL, linear_value_temp3right REAL, linear_value_temp4left REAL, linear_value_temp4right REAL, "
+                + "nonlinear_value_temp1left REAL, nonlinear_value_temp1right REAL, nonlinear_value_temp2left REAL, nonlinear_value_temp2right REAL, "
+                + "nonlinear_value_temp3left REAL, nonlinear_value_temp3right REAL, nonlinear_value_temp4left REAL, nonlinear_value_temp4right REAL, "
+                + "plate_temp_inner_left REAL, plate_temp_inner_right REAL, plate_temp_outer_left REAL, plate_temp_outer_right REAL, "
+                + "UNIQUE(line_number, date, device_name)"
+                + ")";
+    }
+
+    /**
+     * 依次执行尚未执行的迁移步骤，每个步骤在单独的事务中执行并记录到 schema_version 表
+     * @return 当前的表结构版本
+     */
+    public int migrate() throws SQLException {
+        try (WriteConnection writer = acquireWriteConnection()) {
+            return migrate(writer.getConnection());
+        }
+    }
+
+    private int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INTEGER PRIMARY KEY, description TEXT, applied_at TEXT)");
+        }
+
+        int currentVersion = getSchemaVersion();
+        boolean originalAutoCommit = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= currentVersion) continue;
+                try (Statement stmt = conn.createStatement();
+                     PreparedStatement pstmt = conn.prepareStatement(
+                             "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, datetime('now', 'localtime'))")) {
+                    for (String sql : migration.statements) {
+                        stmt.execute(sql);
+                    }
+                    pstmt.setInt(1, migration.version);
+                    pstmt.setString(2, migration.description);
+                    pstmt.executeUpdate();
+                    conn.commit();
+                    currentVersion = migration.version;
+                    System.out.println("数据库已升级到版本 " + migration.version + ": " + migration.description);
+                } catch (SQLException e) {
+                    conn.rollback();
+                    System.err.println("数据库升级到版本 " + migration.version + " 失败: " + e.getMessage());
+                    throw e;
+                }
+            }
+        } finally {
+            conn.setAutoCommit(originalAutoCommit);
+        }
+        return currentVersion;
+    }
+
+    /**
+     * temperature_data 当前的数据版本。缓存查询结果的一方（如计算会话）记下该值，
+     * 版本变化说明表中写入了新数据，需要重新查询
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * 向 temperature_data 写入数据并提交后调用
+     */
+    public void markDataChanged() {
+        dataVersion.incrementAndGet();
+    }
+
+    /**
+     * 当前的表结构版本，未执行过任何迁移时为 0
+     */
+    public int getSchemaVersion() throws SQLException {
+        try (WriteConnection writer = acquireWriteConnection();
+             Statement stmt = writer.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // 一个迁移步骤：版本号、说明和要执行的语句
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        private Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+
+    /**
+     * 从只读连接池借出一个连接，用完后调用 close() 归还（不会真正关闭连接）。
+     * 在 WAL 模式下，查询不会被正在提交的导入阻塞。池中连接都在使用时等待归还，
+     * 连接池已关闭（包括等待期间关闭）时抛出 SQLException
+     */
+    public ReadConnection acquireReadConnection() throws SQLException {
+        try {
+            readPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待只读连接时被中断", e);
+        }
+        try {
+            return new ReadConnection(takeOrOpenReadConnection());
+        } catch (SQLException | RuntimeException e) {
+            readPermits.release();
+            throw e;
+        }
+    }
+
+    // 已持有许可：优先取空闲连接，没有时新建（失效连接被移出池后，由下一个借用者在这里补上）
+    private Connection takeOrOpenReadConnection() throws SQLException {
+        synchronized (readConnections) {
+            if (closed) {
+                throw new SQLException("数据库连接已关闭");
+            }
+            Connection idle = idleReadConnections.poll();
+            if (idle != null) {
+                return idle;
+            }
+            Connection conn = DriverManager.getConnection(dbUrl);
+            try {
+                profile.applyToReader(conn);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            readConnections.add(conn);
+            return conn;
+        }
+    }
+
+    private void releaseReadConnection(Connection conn) {
+        try {
+            synchronized (readConnections) {
+                if (closed || !readConnections.contains(conn)) {
+                    return;
+                }
+                boolean alive;
+                try {
+                    alive = !conn.isClosed();
+                } catch (SQLException e) {
+                    alive = false;
+                }
+                if (alive) {
+                    idleReadConnections.offer(conn);
+                } else {
+                    // 连接已失效，移出池，释放许可后由等待的线程重新创建
+                    readConnections.remove(conn);
+                }
+            }
+        } finally {
+            readPermits.release();
+        }
+    }
+
+    public PragmaProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * 独占的写连接，配合 try-with-resources 使用，必须在获取它的线程中关闭
+     */
+    public class WriteConnection implements AutoCloseable {
+        private Connection conn;
+
+        private WriteConnection(Connection conn) {
+            this.conn = conn;
+        }
+
+        public Connection getConnection() {
+            if (conn == null) {
+                throw new IllegalStateException("写连接已释放");
+            }
+            return conn;
+        }
+
+        public Statement createStatement() throws SQLException {
+            return getConnection().createStatement();
+        }
+
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            return getConnection().prepareStatement(sql);
+        }
+
+        @Override
+        public void close() {
+            if (conn != null) {
+                conn = null;
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 借出的只读连接，配合 try-with-resources 使用
+     */
+    public class ReadConnection implements AutoCloseable {
+        private Connection conn;
+
+        private ReadConnection(Connection conn) {
+            this.conn = conn;
+        }
+
+        public Connection getConnection() {
+            if (conn == null) {
+                throw new IllegalStateException("只读连接已归还");
+            }
+            return conn;
+        }
+
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            return getConnection().prepareStatement(sql);
+        }
+
+        @Override
+        public void close() {
+            if (conn != null) {
+                releaseReadConnection(conn);
+                conn = null;
+            }
+        }
+    }
+
     // ... 其他方法 (createTable, saveExcelDataToDB, queryTableData) 保持不变 ...
-    // 但需要确保它们都使用 this.connection 或 getConnection()
+    // 但需要确保它们都在持有写连接时使用 this.connection
 
 
 
@@ -110,7 +450,8 @@ public class DatabaseManager {
 
         sqlBuilder.append(")");
 
-        try (Statement stmt = connection.createStatement()) {
+        try (WriteConnection writer = acquireWriteConnection();
+             Statement stmt = writer.createStatement()) {
             stmt.execute(sqlBuilder.toString());
             System.out.println("已创建表: " + tableName);
         }
@@ -155,29 +496,32 @@ public class DatabaseManager {
 
         String sql = sqlBuilder.toString();
 
-        // 批量插入数据
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            // 关闭自动提交以提高性能
-            connection.setAutoCommit(false);
+        // 批量插入数据，整个事务持有写连接
+        try (WriteConnection writer = acquireWriteConnection()) {
+            Connection conn = writer.getConnection();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                // 关闭自动提交以提高性能
+                conn.setAutoCommit(false);
 
-            for (int i = startIndex; i < data.size(); i++) {
-                List<String> row = data.get(i);
-                for (int j = 0; j < Math.min(row.size(), columnCount); j++) {
-                    pstmt.setString(j + 1, row.get(j) != null ? row.get(j) : "");
+                for (int i = startIndex; i < data.size(); i++) {
+                    List<String> row = data.get(i);
+                    for (int j = 0; j < Math.min(row.size(), columnCount); j++) {
+                        pstmt.setString(j + 1, row.get(j) != null ? row.get(j) : "");
+                    }
+                    pstmt.addBatch();
                 }
-                pstmt.addBatch();
-            }
 
-            // 执行批处理
-            int[] result = pstmt.executeBatch();
-            connection.commit();
+                // 执行批处理
+                int[] result = pstmt.executeBatch();
+                conn.commit();
 
-            System.out.println("成功保存 " + result.length + " 行数据到表 " + tableName);
-        } catch (SQLException e) {
-            connection.rollback();
-            throw e;
-        } finally {
-            connection.setAutoCommit(true);
+                System.out.println("成功保存 " + result.length + " 行数据到表 " + tableName);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 
@@ -193,7 +537,8 @@ public class DatabaseManager {
             sql += " LIMIT " + limit;
         }
 
-        try (Statement stmt = connection.createStatement();
+        try (ReadConnection conn = acquireReadConnection();
+             Statement stmt = conn.getConnection().createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             ResultSetMetaData metaData = rs.getMetaData();
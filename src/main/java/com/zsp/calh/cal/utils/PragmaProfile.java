@@ -0,0 +1,89 @@
+package com.zsp.calh.cal.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * SQLite 连接参数组合。
+ * 通过 -Dcal.db.profile=DEFAULT|BALANCED|SAFE|FAST 选择，默认 BALANCED
+ */
+public enum PragmaProfile {
+    /** SQLite 默认设置：回滚日志，synchronous=FULL */
+    DEFAULT("DELETE", "FULL", -2000, 0, "DEFAULT"),
+    /** WAL + NORMAL：读写互不阻塞，断电最多丢失最后一次提交 */
+    BALANCED("WAL", "NORMAL", -64000, 256L * 1024 * 1024, "MEMORY"),
+    /** WAL + FULL：每次提交都落盘 */
+    SAFE("WAL", "FULL", -64000, 256L * 1024 * 1024, "MEMORY"),
+    /** 只适合可重新导入的数据：不等待落盘 */
+    FAST("WAL", "OFF", -256000, 1024L * 1024 * 1024, "MEMORY");
+
+    public static final String PROPERTY_NAME = "cal.db.profile";
+
+    // 等待其他连接释放锁的时间（毫秒）
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize;   // 负数表示 KiB
+    private final long mmapSize;   // 字节，0 表示不使用内存映射
+    private final String tempStore;
+
+    PragmaProfile(String journalMode, String synchronous, int cacheSize, long mmapSize, String tempStore) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+    }
+
+    /**
+     * 读取系统属性 cal.db.profile，未设置或无法识别时使用 BALANCED
+     */
+    public static PragmaProfile fromSystemProperty() {
+        String name = System.getProperty(PROPERTY_NAME);
+        if (name == null || name.isBlank()) {
+            return BALANCED;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("未知的数据库参数配置: " + name + "，使用 " + BALANCED);
+            return BALANCED;
+        }
+    }
+
+    /**
+     * 应用到写连接。journal_mode 是数据库文件级别的设置，只由写连接设置
+     */
+    public void applyToWriter(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            applyCommon(stmt);
+        }
+    }
+
+    /**
+     * 应用到只读连接，并禁止在该连接上写入
+     */
+    public void applyToReader(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            applyCommon(stmt);
+            stmt.execute("PRAGMA query_only = ON");
+        }
+    }
+
+    private void applyCommon(Statement stmt) throws SQLException {
+        stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+        stmt.execute("PRAGMA cache_size = " + cacheSize);
+        stmt.execute("PRAGMA mmap_size = " + mmapSize);
+        stmt.execute("PRAGMA temp_store = " + tempStore);
+    }
+
+    public String getJournalMode() { return journalMode; }
+    public String getSynchronous() { return synchronous; }
+    public int getCacheSize() { return cacheSize; }
+    public long getMmapSize() { return mmapSize; }
+    public String getTempStore() { return tempStore; }
+}
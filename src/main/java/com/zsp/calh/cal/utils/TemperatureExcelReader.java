@@ -0,0 +1,298 @@
+package com.zsp.calh.cal.utils;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.TemperatureData;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * 基于 XSSFReader + SAX 事件模型的 Excel 流式读取器。
+ * 逐行解析第一个工作表，每行直接映射为 TemperatureData 交给调用方，
+ * 不在内存中构建整个工作簿，内存占用与行数无关。
+ * 单元格取值规则与 XSSFWorkbook 的 Cell 读取方式保持一致
+ */
+public class TemperatureExcelReader {
+    // 数据从第4行开始（行索引为3，从0开始计数）
+    private static final int FIRST_DATA_ROW = 3;
+    // 读取列 0-64（线别在索引2，板温外右在索引64）
+    private static final int COLUMN_COUNT = 65;
+    // 温度值从索引5开始，按 Channel 顺序排列
+    private static final int FIRST_TEMPERATURE_COLUMN = 5;
+
+    /**
+     * 流式读取 Excel 文件第一个工作表
+     * @param filePath Excel文件路径
+     * @param consumer 每解析出一行调用一次
+     * @return 读取的数据行数
+     */
+    public int read(String filePath, Consumer<TemperatureData> consumer) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            try (InputStream sheet = sheets.next()) {
+                SheetHandler handler = new SheetHandler(sharedStrings, styles, date1904, consumer);
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(handler);
+                parser.parse(new InputSource(sheet));
+                return handler.rowCount;
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("解析Excel文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 将一行单元格文本映射为 TemperatureData
+     * @param cells    列 0-64 的单元格文本，缺失的单元格为 null
+     * @param rowIndex 行索引（用于错误提示）
+     */
+    public static TemperatureData toTemperatureData(String[] cells, int rowIndex) {
+        TemperatureData data = new TemperatureData();
+
+        // 线别（第3列，索引为2）
+        data.setLineNumber(cellText(cells, 2));
+
+        // 设备名称（第4列，索引为3）
+        data.setDeviceName(cellText(cells, 3));
+
+        // 日期（第5列，索引为4）
+        String dateStr = cellText(cells, 4);
+        if (!dateStr.isEmpty()) {
+            try {
+                // 解析格式为"Fri Oct 10 00:00:00 CST"的日期字符串
+                java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("EEE MMM dd HH:mm:ss zzz", java.util.Locale.ENGLISH);
+                java.util.Date date = sdf.parse(dateStr);
+                java.time.LocalDate localDate = date.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+                data.setDate(java.time.MonthDay.of(localDate.getMonth(), localDate.getDayOfMonth()));
+            } catch (Exception e) {
+                // 如果解析失败，尝试其他格式或设置为null
+                System.err.println("日期解析失败: " + dateStr + " 在第" + (rowIndex + 1) + "行");
+                data.setDate(null);
+            }
+        } else {
+            data.setDate(null);
+        }
+
+        // 温度值（第6-65列，索引为5-64）：车上、地面探1-4、线性值、非线性值、板温，与 Channel 顺序一致
+        for (int i = 0; i < Channel.COUNT; i++) {
+            data.set(Channel.of(i), cellDouble(cells, FIRST_TEMPERATURE_COLUMN + i));
+        }
+
+        return data;
+    }
+
+    private static String cellText(String[] cells, int index) {
+        String value = cells[index];
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 从单元格文本中解析double值，解析失败则返回0.0
+     */
+    private static double cellDouble(String[] cells, int index) {
+        String valueStr = cellText(cells, index);
+        if (valueStr.isEmpty()) {
+            return 0.0;
+        }
+        try {
+            return Double.parseDouble(valueStr);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    // 读取 workbook.xml 中的 date1904 设置，日期单元格换算时需要
+    private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        boolean[] date1904 = {false};
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if ("workbookPr".equals(localName)) {
+                        String value = attributes.getValue("date1904");
+                        date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                }
+            });
+            parser.parse(new InputSource(workbook));
+        }
+        return date1904[0];
+    }
+
+    /**
+     * 工作表 XML 的 SAX 处理器，按 XSSFCell 的取值规则把单元格转为文本
+     */
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final Consumer<TemperatureData> consumer;
+
+        private String[] cells;
+        private int rowIndex = -1;
+        private int rowCount;
+
+        // 当前单元格状态
+        private int columnIndex = -1;
+        private String cellType;
+        private String styleIndex;
+        private boolean hasFormula;
+        private boolean inInlineString;
+        private StringBuilder capture;
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+        private final StringBuilder inlineText = new StringBuilder();
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904,
+                     Consumer<TemperatureData> consumer) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                    columnIndex = -1;
+                    cells = new String[COLUMN_COUNT];
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    columnIndex = ref != null ? new CellReference(ref).getCol() : columnIndex + 1;
+                    cellType = attributes.getValue("t");
+                    styleIndex = attributes.getValue("s");
+                    hasFormula = false;
+                    value.setLength(0);
+                    formula.setLength(0);
+                    inlineText.setLength(0);
+                    break;
+                case "v":
+                    capture = value;
+                    break;
+                case "f":
+                    hasFormula = true;
+                    capture = formula;
+                    break;
+                case "is":
+                    inInlineString = true;
+                    break;
+                case "t":
+                    if (inInlineString) capture = inlineText;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capture != null) capture.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "f":
+                case "t":
+                    capture = null;
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "c":
+                    if (columnIndex >= 0 && columnIndex < COLUMN_COUNT && cells != null) {
+                        cells[columnIndex] = cellValueAsString();
+                    }
+                    break;
+                case "row":
+                    if (rowIndex >= FIRST_DATA_ROW) {
+                        consumer.accept(toTemperatureData(cells, rowIndex));
+                        rowCount++;
+                    }
+                    cells = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * 与 Cell 读取规则一致：字符串原样返回；日期格式的数字转为 Date.toString()；
+         * 整数去掉小数部分；布尔值转为 true/false；公式单元格返回公式文本
+         */
+        private String cellValueAsString() {
+            if (hasFormula) {
+                return formula.toString();
+            }
+            if ("s".equals(cellType)) {
+                if (value.length() == 0) return "";
+                return sharedStrings.getItemAt(Integer.parseInt(value.toString().trim())).getString();
+            }
+            if ("inlineStr".equals(cellType)) {
+                return inlineText.toString();
+            }
+            if ("str".equals(cellType) || "e".equals(cellType)) {
+                return value.toString();
+            }
+            if ("b".equals(cellType)) {
+                return String.valueOf("1".equals(value.toString().trim()));
+            }
+
+            // 数字单元格，没有值时为空白单元格
+            if (value.length() == 0) {
+                return "";
+            }
+            double number = Double.parseDouble(value.toString());
+            if (isDateFormatted(number)) {
+                return DateUtil.getJavaDate(number, date1904).toString();
+            }
+            if (number == Math.floor(number)) {
+                return String.valueOf((long) number);
+            }
+            return String.valueOf(number);
+        }
+
+        private boolean isDateFormatted(double number) {
+            if (styles == null || !DateUtil.isValidExcelDate(number)) {
+                return false;
+            }
+            XSSFCellStyle style = styles.getStyleAt(styleIndex != null ? Integer.parseInt(styleIndex) : 0);
+            if (style == null) {
+                return false;
+            }
+            return DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+    }
+}
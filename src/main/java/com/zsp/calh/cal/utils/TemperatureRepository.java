@@ -0,0 +1,198 @@
+package com.zsp.calh.cal.utils;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.TemperatureData;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.MonthDay;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * temperature_data 表的读取。
+ * 查询使用固定的列顺序（温度列按 Channel 顺序），列序号在类加载时算好，逐行映射时按序号取值
+ */
+public class TemperatureRepository {
+    public static final String TABLE_NAME = DatabaseManager.TEMPERATURE_TABLE_NAME;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM-dd");
+
+    // 前 4 列固定为 id, line_number, device_name, date，温度列从第 5 列开始
+    private static final int ID_ORDINAL = 1;
+    private static final int LINE_NUMBER_ORDINAL = 2;
+    private static final int DEVICE_NAME_ORDINAL = 3;
+    private static final int DATE_ORDINAL = 4;
+    private static final int FIRST_TEMPERATURE_ORDINAL = 5;
+
+    // 列名 -> 查询结果中的列序号（从 1 开始）
+    private static final Map<String, Integer> COLUMN_ORDINALS;
+    private static final String SELECT_COLUMNS;
+
+    static {
+        Map<String, Integer> ordinals = new LinkedHashMap<>();
+        ordinals.put("id", ID_ORDINAL);
+        ordinals.put("line_number", LINE_NUMBER_ORDINAL);
+        ordinals.put("device_name", DEVICE_NAME_ORDINAL);
+        ordinals.put("date", DATE_ORDINAL);
+        for (Channel channel : Channel.values()) {
+            ordinals.put(channel.getColumnName(), FIRST_TEMPERATURE_ORDINAL + channel.ordinal());
+        }
+        COLUMN_ORDINALS = Collections.unmodifiableMap(ordinals);
+        SELECT_COLUMNS = String.join(", ", ordinals.keySet());
+    }
+
+    private final DatabaseManager dbManager;
+
+    public TemperatureRepository(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * 分块处理器
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+        void handle(List<TemperatureData> chunk) throws SQLException;
+    }
+
+    /**
+     * 查询条件：日期 ("MM-dd")、线别、设备，为 null 或空字符串的条件不参与筛选
+     */
+    public static class Filter {
+        public static final Filter ALL = new Filter(null, null, null);
+
+        private final String date;
+        private final String lineNumber;
+        private final String deviceName;
+
+        public Filter(String date, String lineNumber, String deviceName) {
+            this.date = date;
+            this.lineNumber = lineNumber;
+            this.deviceName = deviceName;
+        }
+
+        public String getDate() { return date; }
+        public String getLineNumber() { return lineNumber; }
+        public String getDeviceName() { return deviceName; }
+
+        // 拼接 WHERE 条件并收集参数
+        private String toWhereClause(List<String> params) {
+            StringBuilder where = new StringBuilder(" WHERE 1=1");
+            if (date != null && !date.isEmpty()) { where.append(" AND date = ?"); params.add(date); }
+            if (lineNumber != null && !lineNumber.isEmpty()) { where.append(" AND line_number = ?"); params.add(lineNumber); }
+            if (deviceName != null && !deviceName.isEmpty()) { where.append(" AND device_name = ?"); params.add(deviceName); }
+            return where.toString();
+        }
+    }
+
+    /**
+     * 查询符合条件的全部行
+     */
+    public List<TemperatureData> findAll(Filter filter) throws SQLException {
+        List<TemperatureData> list = new ArrayList<>();
+        forEach(filter, list::add);
+        return list;
+    }
+
+    /**
+     * 按 id 顺序逐行读取符合条件的数据并交给 action，不在内存中保留整个结果集。
+     * action 在只读连接的结果集打开期间执行，不要在其中做耗时操作
+     * @return 读取的行数
+     */
+    public int forEach(Filter filter, Consumer<TemperatureData> action) throws SQLException {
+        List<String> params = new ArrayList<>();
+        String sql = "SELECT " + SELECT_COLUMNS + " FROM " + TABLE_NAME + filter.toWhereClause(params) + " ORDER BY id";
+
+        int count = 0;
+        try (DatabaseManager.ReadConnection conn = dbManager.acquireReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setString(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapRow(rs));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按 id 顺序分块读取整张表，内存中同时只保留一块数据。
+     * 读取使用只读连接池，每块读完并关闭结果集后才交给 handler，handler 可以用写连接写库
+     * @param chunkSize 每块的行数
+     * @return 读取的总行数
+     */
+    public int forEachChunk(int chunkSize, ChunkHandler handler) throws SQLException {
+        String sql = "SELECT " + SELECT_COLUMNS + " FROM " + TABLE_NAME + " WHERE id > ? ORDER BY id LIMIT ?";
+        long lastId = 0;
+        int total = 0;
+        while (true) {
+            List<TemperatureData> chunk = new ArrayList<>(chunkSize);
+            try (DatabaseManager.ReadConnection conn = dbManager.acquireReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, lastId);
+                pstmt.setInt(2, chunkSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) chunk.add(mapRow(rs));
+                }
+            }
+            if (chunk.isEmpty()) break;
+
+            lastId = chunk.get(chunk.size() - 1).getId();
+            total += chunk.size();
+            handler.handle(chunk);
+            if (chunk.size() < chunkSize) break;
+        }
+        return total;
+    }
+
+    /**
+     * 列名在查询结果中的序号（从 1 开始），不存在时返回 -1
+     */
+    public static int columnOrdinal(String columnName) {
+        return COLUMN_ORDINALS.getOrDefault(columnName, -1);
+    }
+
+    /**
+     * 将日期格式化为库中存储的 "MM-dd" 形式
+     */
+    public static String formatDate(MonthDay date) {
+        return date == null ? "" : date.format(DATE_FORMATTER);
+    }
+
+    /**
+     * 解析库中存储的日期，兼容 "--MM-dd" 形式，无法解析时返回 null
+     */
+    public static MonthDay parseDate(String dateStr) {
+        if (dateStr == null || dateStr.isEmpty()) return null;
+        try {
+            if (dateStr.startsWith("--")) dateStr = dateStr.substring(2);
+            return MonthDay.parse(dateStr, DATE_FORMATTER);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // --- 完整的数据映射：按列序号取值 ---
+    private TemperatureData mapRow(ResultSet rs) throws SQLException {
+        TemperatureData data = new TemperatureData();
+        data.setId(rs.getLong(ID_ORDINAL));
+        data.setLineNumber(rs.getString(LINE_NUMBER_ORDINAL));
+        data.setDeviceName(rs.getString(DEVICE_NAME_ORDINAL));
+        data.setDate(parseDate(rs.getString(DATE_ORDINAL)));
+
+        for (int i = 0; i < Channel.COUNT; i++) {
+            data.set(Channel.of(i), rs.getDouble(FIRST_TEMPERATURE_ORDINAL + i));
+        }
+        return data;
+    }
+}
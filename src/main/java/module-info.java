@@ -9,6 +9,7 @@ module com.zsp.calh.cal {
     exports com.zsp.calh.cal;
     exports com.zsp.calh.cal.controller;
     exports com.zsp.calh.cal.model;
+    exports com.zsp.calh.cal.service;
     exports com.zsp.calh.cal.utils;
     opens com.zsp.calh.cal.controller to javafx.fxml;
     opens com.zsp.calh.cal.utils to javafx.fxml;
@@ -0,0 +1,123 @@
+package com.zsp.calh.cal.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 列存储的索引查找必须与逐行扫描的结果相同：
+ * findRows 与 String.contains 比较（包括空关键字、短于二元组的关键字和中文等非 ASCII 取值），
+ * findRowsExact 与 SQL 的 = 条件（String.equals、日期相等）比较；
+ * 按列统计与逐行读取 TemperatureData 的结果相同
+ */
+class TemperatureColumnStoreTest {
+    private static final String[] LINES = {"沪昆线", "京广线", "京沪高铁", "L1", "L10", "ab", "aba", "", null};
+    private static final String[] DEVICES = {"设备Ａ1", "设备Ａ12", "东站北", "北京东", "é设备", "dev-1", "DEV", "", null};
+    private static final String[] KEYWORDS = {null, "", "线", "京", "沪", "高铁", "京沪", "沪昆线", "昆京", "L", "1", "L1", "10",
+            "a", "b", "ab", "ba", "aba", "abab", "设备", "Ａ", "Ａ1", "Ａ12", "东", "北京", "é", "é设", "dev", "v-", "DEV", "x", "不存在"};
+
+    @Test
+    void findRowsMatchesLinearContainsScan() {
+        List<TemperatureData> rows = randomRows(71, 500);
+        TemperatureColumnStore store = TemperatureColumnStore.of(rows);
+        for (String line : KEYWORDS) {
+            for (String device : KEYWORDS) {
+                int[] expected = scan(rows, row -> contains(row.getLineNumber(), line) && contains(row.getDeviceName(), device));
+                assertArrayEquals(expected, store.findRows(line, device), "线别 " + line + " 设备 " + device);
+            }
+        }
+    }
+
+    @Test
+    void findRowsExactMatchesLinearEqualsScan() {
+        List<TemperatureData> rows = randomRows(73, 500);
+        TemperatureColumnStore store = TemperatureColumnStore.of(rows);
+        List<String> lines = new ArrayList<>(Arrays.asList(LINES));
+        lines.add("线");
+        List<String> devices = new ArrayList<>(Arrays.asList(DEVICES));
+        devices.add("设备");
+        MonthDay[] dates = {null, MonthDay.of(1, 1), MonthDay.of(2, 29), MonthDay.of(12, 31), MonthDay.of(6, 15)};
+        for (MonthDay date : dates) {
+            for (String line : lines) {
+                for (String device : devices) {
+                    int[] expected = scan(rows, row -> equalsOrBlank(row.getLineNumber(), line)
+                            && equalsOrBlank(row.getDeviceName(), device)
+                            && (date == null || date.equals(row.getDate())));
+                    assertArrayEquals(expected, store.findRowsExact(date, line, device),
+                            "日期 " + date + " 线别 " + line + " 设备 " + device);
+                }
+            }
+        }
+    }
+
+    @Test
+    void columnAggregatesMatchRowValues() {
+        List<TemperatureData> rows = randomRows(79, 300);
+        Random random = new Random(83);
+        for (TemperatureData row : rows) {
+            for (Channel channel : Channel.values()) {
+                row.set(channel, Math.round((random.nextDouble() - 0.3) * 600) / 10.0);
+            }
+        }
+        TemperatureColumnStore store = TemperatureColumnStore.of(rows);
+        int[][] selections = {store.findRows("京", null), store.findRowsExact(MonthDay.of(2, 29), null, null), new int[0],
+                IntStream.range(0, rows.size()).toArray()};
+        for (int[] selected : selections) {
+            for (Channel channel : Channel.values()) {
+                String context = channel + " 共" + selected.length + "行";
+                double sum = 0;
+                double[] expected = new double[selected.length + 2];
+                for (int i = 0; i < selected.length; i++) {
+                    double value = rows.get(selected[i]).get(channel);
+                    sum += value;
+                    expected[i + 2] = value;
+                }
+                assertEquals(sum, store.sum(channel, selected), context + " 和");
+                assertEquals(selected.length == 0 ? Double.NaN : sum / selected.length, store.mean(channel, selected),
+                        context + " 平均值");
+                double[] copied = new double[selected.length + 2];
+                store.copyColumn(channel, selected, copied, 2);
+                assertArrayEquals(expected, copied, context + " 复制");
+            }
+        }
+    }
+
+    // 与 findRows 的约定相同：关键字为空时不参与筛选，null 取值不匹配非空关键字
+    private static boolean contains(String value, String keyword) {
+        if (keyword == null || keyword.isEmpty()) return true;
+        return value != null && value.contains(keyword);
+    }
+
+    // SQL 的 = 条件：参数为空时不参与筛选，NULL 不等于任何值
+    private static boolean equalsOrBlank(String value, String parameter) {
+        if (parameter == null || parameter.isEmpty()) return true;
+        return parameter.equals(value);
+    }
+
+    private static int[] scan(List<TemperatureData> rows, Predicate<TemperatureData> matches) {
+        return IntStream.range(0, rows.size()).filter(i -> matches.test(rows.get(i))).toArray();
+    }
+
+    private static List<TemperatureData> randomRows(long seed, int count) {
+        Random random = new Random(seed);
+        MonthDay[] dates = {null, MonthDay.of(1, 1), MonthDay.of(2, 29), MonthDay.of(12, 31)};
+        List<TemperatureData> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TemperatureData row = new TemperatureData();
+            row.setLineNumber(LINES[random.nextInt(LINES.length)]);
+            row.setDeviceName(DEVICES[random.nextInt(DEVICES.length)]);
+            row.setDate(dates[random.nextInt(dates.length)]);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,82 @@
+package com.zsp.calh.cal.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 数据模型发布的是只读快照：读取时返回设置时的原始数据行，不复制、不还原；
+ * 之后修改传入的列表不影响已发布的快照。筛选结果按列统计
+ */
+class TemperatureDataModelTest {
+
+    @Test
+    void publishesOriginalRowsAsReadOnlySnapshot() {
+        List<TemperatureData> rows = new ArrayList<>(Arrays.asList(row("L1", "甲"), row("L2", "乙"), row("L1", "丙")));
+        TemperatureDataModel model = TemperatureDataModel.getInstance();
+        model.setTemperatureDataList(rows);
+
+        List<TemperatureData> published = model.getTemperatureDataList();
+        assertSame(published, model.getTemperatureDataList(), "重复读取返回同一个快照");
+        assertEquals(rows.size(), published.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertSame(rows.get(i), published.get(i), "第" + i + "行");
+        }
+        assertThrows(UnsupportedOperationException.class, () -> published.add(row("L3", "丁")));
+        assertThrows(UnsupportedOperationException.class, () -> published.set(0, row("L3", "丁")));
+
+        List<TemperatureData> filtered = model.filterData("L1", null);
+        assertEquals(2, filtered.size());
+        assertSame(rows.get(0), filtered.get(0));
+        assertSame(rows.get(2), filtered.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> filtered.remove(0));
+
+        // 设置之后再修改传入的列表，已发布的快照不变
+        rows.clear();
+        assertEquals(3, model.getTemperatureDataList().size());
+
+        model.setTemperatureDataList(null);
+        assertEquals(0, model.getTemperatureDataList().size());
+        assertEquals(0, model.getAllLineNumbers().size());
+    }
+
+    @Test
+    void selectionAggregatesSelectedRows() {
+        TemperatureData a = row("L1", "甲");
+        TemperatureData b = row("L1", "乙");
+        TemperatureData c = row("L1", "甲");
+        a.setDate(MonthDay.of(3, 1));
+        c.setDate(MonthDay.of(3, 2));
+        a.set(Channel.CAR_LEFT_3, 30.5);
+        b.set(Channel.CAR_LEFT_3, 99.0);
+        c.set(Channel.CAR_LEFT_3, 31.5);
+        TemperatureDataModel model = TemperatureDataModel.getInstance();
+        model.setTemperatureDataList(Arrays.asList(a, b, c), 7);
+        assertEquals(7, model.getDataVersion());
+
+        TemperatureDataModel.Selection selection = model.select(null, "L1", "甲");
+        assertEquals(Arrays.asList(a, c), selection.getRows());
+        assertEquals(62.0, selection.sum(Channel.CAR_LEFT_3));
+        assertEquals(31.0, selection.mean(Channel.CAR_LEFT_3));
+        assertEquals(Arrays.asList(c), model.select(MonthDay.of(3, 2), "L1", null).getRows());
+        assertEquals(0, model.select(null, "L", null).size(), "精确匹配，不按子串");
+        assertEquals(Double.NaN, model.select(null, "L2", null).mean(Channel.CAR_LEFT_3));
+
+        model.setTemperatureDataList(Arrays.asList(a, b, c));
+        assertEquals(TemperatureDataModel.NO_DATA_VERSION, model.getDataVersion());
+    }
+
+    private static TemperatureData row(String lineNumber, String deviceName) {
+        TemperatureData row = new TemperatureData();
+        row.setLineNumber(lineNumber);
+        row.setDeviceName(deviceName);
+        return row;
+    }
+}
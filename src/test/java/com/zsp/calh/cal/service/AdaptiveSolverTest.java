@@ -0,0 +1,48 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * 自适应模式只计算部分 G，结果必须与遍历整个 F/G 网格完全相同，
+ * 包括 1 + D/100 == 0 的行和标准差不随 G 变化的行
+ */
+class AdaptiveSolverTest {
+    private static final ProbeChannel[] CHANNELS = {ProbeChannel.PROBE1_LEFT, ProbeChannel.PROBE3_RIGHT};
+    // 0 为全轴优
+    private static final int[] AXES = {0, 4};
+
+    @Test
+    void matchesGridAtDefaultResolution() {
+        assertSameAsGrid(CalculationTestData.randomRows(19, 70), CalculationRequest.DEFAULT_F_STEPS_PER_UNIT,
+                CalculationRequest.DEFAULT_G_STEPS_PER_UNIT);
+    }
+
+    @Test
+    void matchesGridAtFineResolution() {
+        // F 步长 0.01，G 步长 0.1
+        assertSameAsGrid(CalculationTestData.randomRows(23, 35), 100, 10);
+    }
+
+    private static void assertSameAsGrid(List<TemperatureData> rows, int fStepsPerUnit, int gStepsPerUnit) {
+        CalculationEngine engine = new CalculationEngine(Runtime.getRuntime().availableProcessors());
+        try {
+            for (ProbeChannel channel : CHANNELS) {
+                for (int axis : AXES) {
+                    List<List<ResultModel>> grid = engine.calculateRows(rows,
+                            new CalculationRequest(channel, 35.0, null, axis, SolverMode.GRID, fStepsPerUnit, gStepsPerUnit));
+                    List<List<ResultModel>> adaptive = engine.calculateRows(rows,
+                            new CalculationRequest(channel, 35.0, null, axis, SolverMode.ADAPTIVE, fStepsPerUnit, gStepsPerUnit));
+                    CalculationTestData.assertSameResults(grid, adaptive,
+                            channel.getLabel() + " 轴" + axis + " F每单位" + fStepsPerUnit + "格 G每单位" + gStepsPerUnit + "格");
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
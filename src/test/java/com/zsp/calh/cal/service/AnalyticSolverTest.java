@@ -0,0 +1,83 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 解析模式只在闭式最优 F 两侧 TOP_K 个格点内取候选，结果必须与遍历整个 F 网格完全相同；
+ * 遍历网格的结果又必须与为每个 (F, G) 创建候选、排序后取前 TOP_K 个的做法相同。
+ * 测试数据中包含 1 + D/100 == 0 的行（逐点计算，不缩小 F 的范围）
+ */
+class AnalyticSolverTest {
+    private static final ProbeChannel[] CHANNELS = {ProbeChannel.PROBE2_RIGHT, ProbeChannel.PROBE4_LEFT};
+    // 0 为全轴优
+    private static final int[] AXES = {0, 3, 6};
+
+    @Test
+    void matchesGridAtDefaultResolution() {
+        List<TemperatureData> rows = CalculationTestData.randomRows(29, 60);
+        assertSameAsGrid(rows, 35.0, null, CalculationRequest.DEFAULT_F_STEPS_PER_UNIT,
+                CalculationRequest.DEFAULT_G_STEPS_PER_UNIT);
+        assertSameAsGrid(rows, 0.0, Channel.PLATE_OUTER_LEFT, CalculationRequest.DEFAULT_F_STEPS_PER_UNIT,
+                CalculationRequest.DEFAULT_G_STEPS_PER_UNIT);
+    }
+
+    @Test
+    void matchesGridAtFineResolution() {
+        // F 步长 0.01，G 步长 0.1
+        assertSameAsGrid(CalculationTestData.randomRows(31, 20), -12.5, null, 100, 10);
+    }
+
+    @Test
+    void gridMatchesSortingAllCandidates() {
+        List<TemperatureData> rows = CalculationTestData.randomRows(47, 15);
+        CalculationEngine engine = new CalculationEngine(Runtime.getRuntime().availableProcessors());
+        try {
+            for (ProbeChannel channel : CHANNELS) {
+                for (int axis : AXES) {
+                    CalculationRequest request = new CalculationRequest(channel, 35.0, null, axis, SolverMode.GRID,
+                            CalculationRequest.DEFAULT_F_STEPS_PER_UNIT, CalculationRequest.DEFAULT_G_STEPS_PER_UNIT);
+                    List<List<ResultModel>> grid = engine.calculateRows(rows, request);
+                    for (int i = 0; i < rows.size(); i++) {
+                        List<ResultModel> expected = CalculationTestData.bruteForceTopK(i + 1, rows.get(i), request);
+                        List<ResultModel> actual = grid.get(i);
+                        String context = channel.getLabel() + " 轴" + axis + " 第" + (i + 1) + "行";
+                        assertEquals(expected.size(), actual.size(), context + " 条数");
+                        for (int j = 0; j < expected.size(); j++) {
+                            CalculationTestData.assertSameResult(expected.get(j), actual.get(j), context + " 第" + (j + 1) + "条");
+                        }
+                    }
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static void assertSameAsGrid(List<TemperatureData> rows, double plateTemp, Channel plateChannel,
+                                         int fStepsPerUnit, int gStepsPerUnit) {
+        CalculationEngine engine = new CalculationEngine(Runtime.getRuntime().availableProcessors());
+        try {
+            for (ProbeChannel channel : CHANNELS) {
+                for (int axis : AXES) {
+                    List<List<ResultModel>> grid = engine.calculateRows(rows, new CalculationRequest(channel, plateTemp,
+                            plateChannel, null, axis, SolverMode.GRID, fStepsPerUnit, gStepsPerUnit));
+                    List<List<ResultModel>> analytic = engine.calculateRows(rows, new CalculationRequest(channel, plateTemp,
+                            plateChannel, null, axis, SolverMode.ANALYTIC, fStepsPerUnit, gStepsPerUnit));
+                    CalculationTestData.assertSameResults(grid, analytic, channel.getLabel() + " 轴" + axis
+                            + " E=" + (plateChannel != null ? plateChannel : plateTemp)
+                            + " F每单位" + fStepsPerUnit + "格 G每单位" + gStepsPerUnit + "格");
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+import com.zsp.calh.cal.utils.CalculationCacheRepository;
+import com.zsp.calh.cal.utils.DatabaseManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.time.MonthDay;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 计算缓存：输入指纹只由参与计算的取值和计算参数决定，任何一项变化都不再命中；
+ * 内存 LRU 与 calc_cache 表的读写，以及从缓存取出的结果与重新计算的结果相同
+ */
+class CalculationCacheTest {
+    private static final ProbeChannel CHANNEL = ProbeChannel.PROBE2_LEFT;
+
+    @Test
+    void sameInputGivesSameFingerprint() {
+        TemperatureData row = CalculationTestData.randomRows(61, 1).get(0);
+        TemperatureData copy = CalculationTestData.randomRows(61, 1).get(0);
+        // 不参与计算的字段和其他探头的取值不影响指纹
+        copy.setLineNumber("其他线别");
+        copy.setDeviceName("其他设备");
+        copy.setDate(MonthDay.of(2, 29));
+        copy.set(ProbeChannel.PROBE3_RIGHT.getGroundChannel(4), 99.9);
+        copy.set(ProbeChannel.PROBE1_LEFT.getLinearChannel(), -5.0);
+        copy.set(Channel.PLATE_INNER_LEFT, 12.3);
+
+        CalculationRequest request = request(35.0, null, 0, SolverMode.ANALYTIC, 10, 1);
+        assertEquals(CalculationCache.fingerprint(row, request), CalculationCache.fingerprint(copy, request));
+    }
+
+    @Test
+    void changingAnyInputValueChangesFingerprint() {
+        CalculationRequest request = request(35.0, null, 0, SolverMode.ANALYTIC, 10, 1);
+        TemperatureData row = CalculationTestData.randomRows(67, 1).get(0);
+        String key = CalculationCache.fingerprint(row, request);
+
+        for (int axle = ProbeChannel.FIRST_AXLE; axle < ProbeChannel.FIRST_AXLE + ProbeChannel.AXLE_COUNT; axle++) {
+            assertChangesFingerprint(row, CHANNEL.getGroundChannel(axle), request, key);
+            assertChangesFingerprint(row, CHANNEL.getCarChannel(axle), request, key);
+        }
+        assertChangesFingerprint(row, CHANNEL.getLinearChannel(), request, key);
+        assertChangesFingerprint(row, CHANNEL.getNonlinearChannel(), request, key);
+
+        // 使用板温通道时，该行的板温也是输入
+        CalculationRequest rowPlate = request(0.0, Channel.PLATE_OUTER_RIGHT, 0, SolverMode.ANALYTIC, 10, 1);
+        assertChangesFingerprint(row, Channel.PLATE_OUTER_RIGHT, rowPlate, CalculationCache.fingerprint(row, rowPlate));
+    }
+
+    @Test
+    void changingCalculationParametersChangesFingerprint() {
+        TemperatureData row = CalculationTestData.randomRows(71, 1).get(0);
+        CalculationRequest base = request(35.0, null, 0, SolverMode.ANALYTIC, 10, 1);
+        String key = CalculationCache.fingerprint(row, base);
+
+        assertNotEquals(key, CalculationCache.fingerprint(row, request(35.1, null, 0, SolverMode.ANALYTIC, 10, 1)), "板温 E");
+        assertNotEquals(key, CalculationCache.fingerprint(row, request(0.0, Channel.PLATE_INNER_LEFT, 0, SolverMode.ANALYTIC, 10, 1)),
+                "改用板温通道");
+        assertNotEquals(key, CalculationCache.fingerprint(row, request(35.0, null, 4, SolverMode.ANALYTIC, 10, 1)), "轴位");
+        assertNotEquals(key, CalculationCache.fingerprint(row, request(35.0, null, 0, SolverMode.GRID, 10, 1)), "求解方式");
+        assertNotEquals(key, CalculationCache.fingerprint(row, request(35.0, null, 0, SolverMode.ADAPTIVE, 10, 1)), "求解方式");
+        assertNotEquals(key, CalculationCache.fingerprint(row, request(35.0, null, 0, SolverMode.ANALYTIC, 100, 1)), "F 精度");
+        assertNotEquals(key, CalculationCache.fingerprint(row, request(35.0, null, 0, SolverMode.ANALYTIC, 10, 10)), "G 精度");
+        CalculationRequest selectedG = new CalculationRequest(CHANNEL, 35.0, null, 5.0, 0, SolverMode.ANALYTIC, 10, 1);
+        assertNotEquals(key, CalculationCache.fingerprint(row, selectedG), "选定 G");
+        CalculationRequest otherChannel = new CalculationRequest(ProbeChannel.PROBE2_RIGHT, 35.0, null, null, 0,
+                SolverMode.ANALYTIC, 10, 1);
+        assertNotEquals(key, CalculationCache.fingerprint(row, otherChannel), "探头/方位");
+        // 修改计算方法时递增 FORMAT_VERSION，旧指纹全部失效
+        assertEquals(key, CalculationCache.fingerprint(row, base, CalculationCache.FORMAT_VERSION));
+        assertNotEquals(key, CalculationCache.fingerprint(row, base, CalculationCache.FORMAT_VERSION + 1), "格式版本");
+    }
+
+    @Test
+    void memoryCacheEvictsLeastRecentlyUsed() {
+        CalculationCache cache = new CalculationCache(2, null);
+        cache.putAll(entries("a", "b"));
+        // 访问 a 之后，b 是最久未使用的
+        assertEquals(1, cache.getAll(Collections.singletonList("a")).size());
+        cache.putAll(entries("c"));
+
+        Map<String, double[]> found = cache.getAll(Arrays.asList("a", "b", "c"));
+        assertEquals(2, cache.getMemorySize());
+        assertTrue(found.containsKey("a") && found.containsKey("c") && !found.containsKey("b"), found.keySet().toString());
+    }
+
+    @Test
+    void repositoryRoundTripAndEviction() throws Exception {
+        DatabaseManager db = database();
+        CalculationCacheRepository repository = new CalculationCacheRepository(db, 100);
+        new CalculationCache(10, repository).clear();
+
+        Map<String, double[]> saved = entries("k1", "k2", "k3");
+        new CalculationCache(10, repository).putAll(saved);
+        // 新的缓存对象内存为空，只能从表中读出
+        CalculationCache fresh = new CalculationCache(10, repository);
+        Map<String, double[]> found = fresh.getAll(Arrays.asList("k1", "k2", "k3", "missing"));
+        assertEquals(saved.keySet(), found.keySet());
+        for (String key : saved.keySet()) {
+            assertArrayEquals(saved.get(key), found.get(key), key);
+        }
+        assertEquals(3, fresh.getMemorySize(), "表中命中的条目放入内存");
+
+        fresh.clear();
+        assertEquals(0, repository.count());
+        assertTrue(new CalculationCache(10, repository).getAll(saved.keySet()).isEmpty());
+
+        // 超出上限时删除最早写入的记录
+        CalculationCacheRepository bounded = new CalculationCacheRepository(db, 3);
+        bounded.saveAll(entries("old1", "old2"));
+        Thread.sleep(5);
+        bounded.saveAll(entries("new1", "new2"));
+        assertEquals(3, bounded.count());
+        assertEquals(2, bounded.findAll(Arrays.asList("new1", "new2")).size());
+    }
+
+    @Test
+    void cachedResultsMatchFreshCalculation() throws Exception {
+        List<TemperatureData> rows = CalculationTestData.randomRows(73, 30);
+        List<CalculationRequest> requests = Arrays.asList(
+                request(35.0, null, 0, SolverMode.ANALYTIC, 10, 1),
+                new CalculationRequest(ProbeChannel.PROBE4_RIGHT, 0.0, Channel.PLATE_INNER_RIGHT, null, 6,
+                        SolverMode.GRID, 10, 1));
+        CalculationCacheRepository repository = new CalculationCacheRepository(database(), 100_000);
+
+        CalculationEngine uncached = new CalculationEngine(2);
+        CalculationEngine cached = new CalculationEngine(2);
+        try {
+            List<List<ResultModel>> expected = uncached.calculateMatrix(rows, requests, ProgressMonitor.NONE,
+                    (RowResultListener) null);
+            // 第一次计算写入缓存，第二次换一个内存为空的缓存对象，结果全部从表中读出
+            cached.setCache(new CalculationCache(10_000, repository));
+            CalculationTestData.assertSameResults(expected,
+                    cached.calculateMatrix(rows, requests, ProgressMonitor.NONE, (RowResultListener) null), "写入缓存");
+            CalculationCache fromTable = new CalculationCache(10_000, repository);
+            cached.setCache(fromTable);
+            CalculationTestData.assertSameResults(expected,
+                    cached.calculateMatrix(rows, requests, ProgressMonitor.NONE, (RowResultListener) null), "从表中读出");
+            assertEquals(rows.size() * requests.size(), fromTable.getMemorySize(), "全部命中");
+
+            // 修改一行的输入后该行不再命中，重新计算的结果与不使用缓存时相同
+            TemperatureData changed = rows.get(7);
+            changed.set(CHANNEL.getGroundChannel(5), changed.get(CHANNEL.getGroundChannel(5)) + 0.1);
+            CalculationTestData.assertSameResults(
+                    uncached.calculateMatrix(rows, requests, ProgressMonitor.NONE, (RowResultListener) null),
+                    cached.calculateMatrix(rows, requests, ProgressMonitor.NONE, (RowResultListener) null), "修改一行之后");
+        } finally {
+            uncached.shutdown();
+            cached.shutdown();
+        }
+    }
+
+    private static void assertChangesFingerprint(TemperatureData row, Channel channel, CalculationRequest request,
+                                                 String key) {
+        double original = row.get(channel);
+        row.set(channel, original + 0.1);
+        try {
+            assertNotEquals(key, CalculationCache.fingerprint(row, request), channel.name());
+        } finally {
+            row.set(channel, original);
+        }
+        assertEquals(key, CalculationCache.fingerprint(row, request), channel.name() + " 还原后");
+    }
+
+    private static CalculationRequest request(double plateTemp, Channel plateChannel, int axis, SolverMode mode,
+                                              int fStepsPerUnit, int gStepsPerUnit) {
+        return new CalculationRequest(CHANNEL, plateTemp, plateChannel, null, axis, mode, fStepsPerUnit, gStepsPerUnit);
+    }
+
+    private static Map<String, double[]> entries(String... keys) {
+        Map<String, double[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            entries.put(keys[i], new double[]{i, -i * 0.1, Math.PI * i, Double.MIN_VALUE, -0.0});
+        }
+        return entries;
+    }
+
+    // DatabaseManager 是单例，本测试类的用例共用一个临时数据库文件
+    private static DatabaseManager database() throws IOException, SQLException {
+        File file = Files.createTempFile("calc-cache-test", ".db").toFile();
+        file.deleteOnExit();
+        return DatabaseManager.initializeInstance(file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,91 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 会话重新排序时用中间量还原各轴偏移（restoreOffsets），标准差取 computePartials 缓存的值，
+ * 结果必须与完整计算（GridKernel.evaluateG）完全相同
+ */
+class CalculationSessionTest {
+    private static final double[] PLATE_TEMPS = {-10.0, 35.0, 61.7};
+    // 0 为全轴优
+    private static final int[] AXES = {0, 3, 6};
+
+    @Test
+    void sessionMatchesFullCalculationWithFixedPlateTemp() {
+        List<TemperatureData> rows = CalculationTestData.randomRows(31, 40);
+        for (ProbeChannel channel : new ProbeChannel[]{ProbeChannel.PROBE2_LEFT, ProbeChannel.PROBE4_RIGHT}) {
+            for (double plateTemp : PLATE_TEMPS) {
+                assertSessionMatches(rows, channel, plateTemp, null);
+            }
+        }
+    }
+
+    @Test
+    void sessionMatchesFullCalculationWithRowPlateChannel() {
+        List<TemperatureData> rows = CalculationTestData.randomRows(37, 40);
+        for (Channel plateChannel : new Channel[]{Channel.PLATE_INNER_LEFT, Channel.PLATE_OUTER_RIGHT}) {
+            assertSessionMatches(rows, ProbeChannel.PROBE1_RIGHT, 0.0, plateChannel);
+        }
+    }
+
+    // 同一会话依次用所有求解方式、轴位和两种网格精度的 F 重新计算
+    private static void assertSessionMatches(List<TemperatureData> rows, ProbeChannel channel, double plateTemp,
+                                             Channel plateChannel) {
+        CalculationEngine engine = new CalculationEngine(Runtime.getRuntime().availableProcessors());
+        try {
+            CalculationSession session = engine.openSession(rows,
+                    request(channel, plateTemp, plateChannel, 0, SolverMode.ANALYTIC, CalculationRequest.DEFAULT_F_STEPS_PER_UNIT),
+                    ProgressMonitor.NONE);
+            for (SolverMode mode : SolverMode.values()) {
+                for (int axis : AXES) {
+                    for (int fStepsPerUnit : new int[]{CalculationRequest.DEFAULT_F_STEPS_PER_UNIT, 100}) {
+                        CalculationRequest request = request(channel, plateTemp, plateChannel, axis, mode, fStepsPerUnit);
+                        String context = channel.getLabel() + " " + mode.getLabel() + " 轴" + axis
+                                + " E=" + (plateChannel != null ? plateChannel : plateTemp) + " F每单位" + fStepsPerUnit + "格";
+
+                        List<List<ResultModel>> full = engine.calculateMatrix(rows, Collections.singletonList(request),
+                                ProgressMonitor.NONE, (RowResultListener) null);
+                        List<ResultModel> expected = new ArrayList<>();
+                        full.forEach(expected::addAll);
+                        List<ResultModel> fromSession = engine.calculate(session, request, ProgressMonitor.NONE,
+                                (RowResultListener) null);
+                        assertSameResults(expected, fromSession, context);
+
+                        // 写入结果缓冲区的路径
+                        ResultBuffer buffer = new ResultBuffer(rows, Collections.singletonList(request));
+                        engine.calculate(session, request, ProgressMonitor.NONE, buffer);
+                        List<ResultModel> fromBuffer = new ArrayList<>(buffer.size());
+                        for (int i = 0; i < buffer.size(); i++) fromBuffer.add(buffer.toResultModel(i));
+                        assertSameResults(expected, fromBuffer, context + " 结果缓冲区");
+                    }
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static CalculationRequest request(ProbeChannel channel, double plateTemp, Channel plateChannel, int axis,
+                                              SolverMode mode, int fStepsPerUnit) {
+        return new CalculationRequest(channel, plateTemp, plateChannel, null, axis, mode, fStepsPerUnit,
+                CalculationRequest.DEFAULT_G_STEPS_PER_UNIT);
+    }
+
+    private static void assertSameResults(List<ResultModel> expected, List<ResultModel> actual, String context) {
+        assertEquals(expected.size(), actual.size(), context + " 条数");
+        for (int i = 0; i < expected.size(); i++) {
+            CalculationTestData.assertSameResult(expected.get(i), actual.get(i), context + " 第" + (i + 1) + "条");
+        }
+    }
+}
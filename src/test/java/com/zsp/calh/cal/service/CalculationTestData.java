@@ -0,0 +1,139 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.Channel;
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 计算相关测试共用的随机数据和结果比较
+ */
+final class CalculationTestData {
+
+    private CalculationTestData() {
+    }
+
+    /**
+     * 生成 count 行随机数据，温度取 20~50 之间保留一位小数的值。
+     * 每 5 行中有一行所有探头的 D = -100（1 + D/100 == 0，H 与 F 无关），
+     * 每 7 行中有一行各探头 4 个轴的地面温度相同（标准差不随 G 变化）
+     */
+    static List<TemperatureData> randomRows(long seed, int count) {
+        Random random = new Random(seed);
+        List<TemperatureData> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TemperatureData row = new TemperatureData();
+            row.setLineNumber("线" + (i % 3));
+            row.setDeviceName("设备" + (i % 4));
+            for (Channel channel : Channel.values()) {
+                row.set(channel, Math.round((20 + random.nextDouble() * 30) * 10) / 10.0);
+            }
+            if (i % 5 == 1) {
+                for (ProbeChannel probe : ProbeChannel.values()) {
+                    row.set(probe.getNonlinearChannel(), -100.0);
+                }
+            }
+            if (i % 7 == 3) {
+                for (ProbeChannel probe : ProbeChannel.values()) {
+                    double ground = probe.ground(row, ProbeChannel.FIRST_AXLE);
+                    for (int k = 1; k < ProbeChannel.AXLE_COUNT; k++) {
+                        row.set(probe.getGroundChannel(ProbeChannel.FIRST_AXLE + k), ground);
+                    }
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 参照实现：为每个 (F, G) 创建候选，按 标准差、第二关键字 稳定排序后取前 TOP_K 个（原来的 sorted().limit() 做法）。
+     * 差值为 calculateH - Z；标准差取 F=0、E=0 时的差值计算，同一个 G 下所有 F 的标准差相同
+     */
+    static List<ResultModel> bruteForceTopK(int rowNumber, TemperatureData row, CalculationRequest request) {
+        ProbeChannel channel = request.getChannel();
+        int targetAxis = request.getTargetAxis();
+        double C = channel.linear(row);
+        double D = channel.nonlinear(row);
+        double E = request.getPlateTemp(row);
+        double[] baseDiffs = new double[ProbeChannel.AXLE_COUNT];
+        double[] diffs = new double[ProbeChannel.AXLE_COUNT];
+        List<ResultModel> candidates = new ArrayList<>();
+        for (double G : request.getGValueArray()) {
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                baseDiffs[k] = CalculationEngine.calculateH(channel.ground(row, ProbeChannel.FIRST_AXLE + k), C, D, 0.0, 0.0, G)
+                        - channel.car(row, ProbeChannel.FIRST_AXLE + k);
+            }
+            double stdDev = CalculationEngine.calculateStdDev(baseDiffs);
+            for (double F : request.getFValues()) {
+                for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                    diffs[k] = CalculationEngine.calculateH(channel.ground(row, ProbeChannel.FIRST_AXLE + k), C, D, E, F, G)
+                            - channel.car(row, ProbeChannel.FIRST_AXLE + k);
+                }
+                ResultModel model = new ResultModel();
+                model.setRowInfo(CalculationEngine.rowInfo(rowNumber, row));
+                model.setF(F);
+                model.setG(G);
+                model.setStdDev(stdDev);
+                model.setDiff3(diffs[0]);
+                model.setDiff4(diffs[1]);
+                model.setDiff5(diffs[2]);
+                model.setDiff6(diffs[3]);
+                model.setTargetDiff(targetAxis > 0 ? diffs[targetAxis - ProbeChannel.FIRST_AXLE] : 0.0);
+                model.setChannel(channel);
+                model.setRemark(request.getRemark());
+                candidates.add(model);
+            }
+        }
+        Comparator<ResultModel> comparator = Comparator.comparingDouble(ResultModel::getStdDev)
+                .thenComparingDouble(r -> TopKSelector.secondaryKey(targetAxis, r.getStdDev(),
+                        r.getDiff3(), r.getDiff4(), r.getDiff5(), r.getDiff6()));
+        List<ResultModel> top = candidates.stream()
+                .sorted(comparator)
+                .limit(CalculationEngine.TOP_K)
+                .collect(Collectors.toList());
+        for (int i = 0; i < top.size(); i++) {
+            top.get(i).setRank(i + 1);
+        }
+        return top;
+    }
+
+    /**
+     * 逐行逐条比较两组结果，数值要求完全相同
+     */
+    static void assertSameResults(List<List<ResultModel>> expected, List<List<ResultModel>> actual, String context) {
+        assertEquals(expected.size(), actual.size(), context + " 行数");
+        for (int i = 0; i < expected.size(); i++) {
+            List<ResultModel> expectedRow = expected.get(i);
+            List<ResultModel> actualRow = actual.get(i);
+            String rowContext = context + " 第" + (i + 1) + "行";
+            assertEquals(expectedRow.size(), actualRow.size(), rowContext + " 条数");
+            for (int j = 0; j < expectedRow.size(); j++) {
+                assertSameResult(expectedRow.get(j), actualRow.get(j), rowContext + " 第" + (j + 1) + "条");
+            }
+        }
+    }
+
+    static void assertSameResult(ResultModel expected, ResultModel actual, String context) {
+        assertEquals(expected.getRowInfo(), actual.getRowInfo(), context + " 行信息");
+        assertEquals(expected.getChannel(), actual.getChannel(), context + " 探头/方位");
+        assertEquals(expected.getRank(), actual.getRank(), context + " 排名");
+        assertEquals(expected.getF(), actual.getF(), context + " F");
+        assertEquals(expected.getG(), actual.getG(), context + " G");
+        assertEquals(expected.getStdDev(), actual.getStdDev(), context + " 标准差");
+        assertEquals(expected.getDiff3(), actual.getDiff3(), context + " 轴3差值");
+        assertEquals(expected.getDiff4(), actual.getDiff4(), context + " 轴4差值");
+        assertEquals(expected.getDiff5(), actual.getDiff5(), context + " 轴5差值");
+        assertEquals(expected.getDiff6(), actual.getDiff6(), context + " 轴6差值");
+        assertEquals(expected.getTargetDiff(), actual.getTargetDiff(), context + " 目标轴差值");
+        assertEquals(expected.getRemark(), actual.getRemark(), context + " 备注");
+    }
+}
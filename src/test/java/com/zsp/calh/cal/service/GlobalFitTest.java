@@ -0,0 +1,124 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.model.ResultModel;
+import com.zsp.calh.cal.model.TemperatureData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 整体拟合只用累加的和评价 (F, G)，结果必须与直接用该设备所有行的差值逐个 (F, G) 计算后取最优的结果相同：
+ * (F, G) 完全相同，标准差和平均差值只差舍入误差。1 + D/100 == 0 的行不参与拟合
+ */
+class GlobalFitTest {
+    private static final double TOLERANCE = 1e-9;
+    private static final int[] AXES = {0, 3, 5};
+
+    @Test
+    void matchesBruteForceOverAllRowsOfEachDevice() {
+        List<TemperatureData> rows = CalculationTestData.randomRows(59, 120);
+        CalculationEngine engine = new CalculationEngine(Runtime.getRuntime().availableProcessors());
+        try {
+            for (ProbeChannel channel : new ProbeChannel[]{ProbeChannel.PROBE1_LEFT, ProbeChannel.PROBE3_RIGHT}) {
+                for (int axis : AXES) {
+                    for (SolverMode mode : new SolverMode[]{SolverMode.GRID, SolverMode.ANALYTIC}) {
+                        CalculationRequest request = new CalculationRequest(channel, 35.0, null, axis, mode,
+                                CalculationRequest.DEFAULT_F_STEPS_PER_UNIT, CalculationRequest.DEFAULT_G_STEPS_PER_UNIT);
+                        assertMatchesBruteForce(rows, request, engine.calculateGlobal(rows, request, ProgressMonitor.NONE),
+                                channel.getLabel() + " 轴" + axis + " " + mode.getLabel());
+                    }
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static void assertMatchesBruteForce(List<TemperatureData> rows, CalculationRequest request,
+                                                List<ResultModel> actual, String context) {
+        // 按设备首次出现的顺序分组，去掉 1 + D/100 == 0 的行
+        Map<String, List<TemperatureData>> devices = new LinkedHashMap<>();
+        for (TemperatureData row : rows) {
+            List<TemperatureData> deviceRows = devices.computeIfAbsent(row.getLineNumber() + " [" + row.getDeviceName() + "]",
+                    key -> new ArrayList<>());
+            if (1 + request.getChannel().nonlinear(row) / 100.0 != 0) deviceRows.add(row);
+        }
+
+        int index = 0;
+        for (Map.Entry<String, List<TemperatureData>> device : devices.entrySet()) {
+            List<double[]> expected = bruteForceTopK(device.getValue(), request);
+            String deviceContext = context + " " + device.getKey();
+            for (int j = 0; j < expected.size(); j++) {
+                double[] e = expected.get(j);
+                ResultModel r = actual.get(index++);
+                String at = deviceContext + " 第" + (j + 1) + "名";
+                assertEquals(device.getKey() + " 共" + device.getValue().size() + "行", r.getRowInfo(), at + " 行信息");
+                assertEquals(j + 1, r.getRank(), at + " 排名");
+                assertEquals(e[0], r.getF(), at + " F");
+                assertEquals(e[1], r.getG(), at + " G");
+                assertEquals(e[2], r.getStdDev(), TOLERANCE, at + " 标准差");
+                assertEquals(e[4], r.getDiff3(), TOLERANCE, at + " 轴3平均差值");
+                assertEquals(e[5], r.getDiff4(), TOLERANCE, at + " 轴4平均差值");
+                assertEquals(e[6], r.getDiff5(), TOLERANCE, at + " 轴5平均差值");
+                assertEquals(e[7], r.getDiff6(), TOLERANCE, at + " 轴6平均差值");
+            }
+        }
+        assertEquals(index, actual.size(), context + " 条数");
+    }
+
+    /**
+     * 对每个 (F, G) 直接计算该设备所有行、所有轴差值的总体标准差和各轴平均差值，
+     * 按 标准差、第二关键字 排序后取前 TOP_K 个。返回 {F, G, 标准差, 第二关键字, 轴3-6平均差值}
+     */
+    private static List<double[]> bruteForceTopK(List<TemperatureData> rows, CalculationRequest request) {
+        ProbeChannel channel = request.getChannel();
+        int targetAxis = request.getTargetAxis();
+        int n = rows.size() * ProbeChannel.AXLE_COUNT;
+        List<double[]> candidates = new ArrayList<>();
+        for (double G : request.getGValueArray()) {
+            // 标准差与 F 无关，按 F=0 计算一次，避免不同 F 之间的舍入差异影响排序
+            double[] baseDiffs = new double[n];
+            double sum = 0.0;
+            for (int r = 0; r < rows.size(); r++) {
+                TemperatureData row = rows.get(r);
+                for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                    double H = CalculationEngine.calculateH(channel.ground(row, ProbeChannel.FIRST_AXLE + k),
+                            channel.linear(row), channel.nonlinear(row), request.getPlateTemp(row), 0.0, G);
+                    baseDiffs[r * ProbeChannel.AXLE_COUNT + k] = H - channel.car(row, ProbeChannel.FIRST_AXLE + k);
+                    sum += baseDiffs[r * ProbeChannel.AXLE_COUNT + k];
+                }
+            }
+            double mean = sum / n;
+            double sumSq = 0.0;
+            for (double d : baseDiffs) sumSq += (d - mean) * (d - mean);
+            double stdDev = Math.sqrt(sumSq / n);
+
+            double[] axleMeans = new double[ProbeChannel.AXLE_COUNT];
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                for (int r = 0; r < rows.size(); r++) axleMeans[k] += baseDiffs[r * ProbeChannel.AXLE_COUNT + k];
+                axleMeans[k] /= rows.size();
+            }
+            for (double F : request.getFValues()) {
+                double[] c = new double[4 + ProbeChannel.AXLE_COUNT];
+                c[0] = F;
+                c[1] = G;
+                c[2] = stdDev;
+                for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) c[4 + k] = axleMeans[k] + F;
+                c[3] = TopKSelector.secondaryKey(targetAxis, stdDev, c[4], c[5], c[6], c[7]);
+                candidates.add(c);
+            }
+        }
+        return candidates.stream()
+                .sorted(Comparator.<double[]>comparingDouble(c -> c[2]).thenComparingDouble(c -> c[3]))
+                .limit(CalculationEngine.TOP_K)
+                .collect(Collectors.toList());
+    }
+}
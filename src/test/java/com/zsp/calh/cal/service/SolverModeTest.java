@@ -0,0 +1,21 @@
+package com.zsp.calh.cal.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SolverModeTest {
+
+    @Test
+    void fromOptionAcceptsKnownValuesAndDefaultsToAnalytic() {
+        assertEquals(SolverMode.GRID, SolverMode.fromOption("grid"));
+        assertEquals(SolverMode.ADAPTIVE, SolverMode.fromOption("ADAPTIVE"));
+        assertEquals(SolverMode.ANALYTIC, SolverMode.fromOption(null));
+    }
+
+    @Test
+    void fromOptionRejectsUnknownValues() {
+        assertThrows(IllegalArgumentException.class, () -> SolverMode.fromOption("adaptve"));
+    }
+}
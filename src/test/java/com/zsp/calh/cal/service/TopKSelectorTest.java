@@ -0,0 +1,76 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 定长选择器必须与 “全部候选稳定排序后取前 K 个” 的结果相同，
+ * 包括标准差和第二关键字都相同的候选（先加入的排在前面）
+ */
+class TopKSelectorTest {
+
+    @Test
+    void matchesStableSortWithTiedKeys() {
+        Random random = new Random(53);
+        for (int capacity : new int[]{1, 2, CalculationEngine.TOP_K, 9}) {
+            TopKSelector selector = new TopKSelector(capacity);
+            for (int trial = 0; trial < 500; trial++) {
+                // 关键字只取少数几个值，大部分候选都有并列
+                int distinct = 1 + random.nextInt(4);
+                int count = random.nextInt(60);
+                List<double[]> candidates = new ArrayList<>(count);
+                selector.reset();
+                for (int i = 0; i < count; i++) {
+                    double[] candidate = {i, random.nextInt(3), random.nextInt(distinct) * 0.5, random.nextInt(distinct) * 0.25,
+                            random.nextDouble(), random.nextDouble(), random.nextDouble(), random.nextDouble()};
+                    candidates.add(candidate);
+                    offer(selector, candidate, "容量" + capacity + " 第" + trial + "组 第" + i + "个");
+                }
+
+                List<double[]> expected = candidates.stream()
+                        .sorted(Comparator.<double[]>comparingDouble(c -> c[2]).thenComparingDouble(c -> c[3]))
+                        .limit(capacity)
+                        .collect(Collectors.toList());
+                String context = "容量" + capacity + " 第" + trial + "组";
+                assertEquals(expected.size(), selector.size(), context + " 条数");
+                for (int j = 0; j < expected.size(); j++) {
+                    double[] e = expected.get(j);
+                    String at = context + " 第" + (j + 1) + "名";
+                    // F 为加入顺序，并列时检查先后次序
+                    assertEquals(e[0], selector.getF(j), at + " 加入顺序");
+                    assertEquals(e[1], selector.getG(j), at + " G");
+                    assertEquals(e[2], selector.getStdDev(j), at + " 标准差");
+                    for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                        assertEquals(e[4 + k], selector.getDiff(j, ProbeChannel.FIRST_AXLE + k), at + " 轴" + (k + 3) + "差值");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void resetStartsEmpty() {
+        TopKSelector selector = new TopKSelector(2);
+        selector.offer(1, 0, 0.5, 0.5, new double[ProbeChannel.AXLE_COUNT]);
+        selector.reset();
+        assertEquals(0, selector.size());
+        selector.offer(2, 0, 0.9, 0.9, new double[ProbeChannel.AXLE_COUNT]);
+        assertEquals(1, selector.size());
+        assertEquals(2.0, selector.getF(0));
+    }
+
+    // 与引擎相同的用法：先用 accepts 判断，accepts 的结果必须与 offer 的返回值一致
+    private static void offer(TopKSelector selector, double[] c, String context) {
+        boolean accepts = selector.accepts(c[2], c[3]);
+        boolean offered = selector.offer(c[0], c[1], c[2], c[3], new double[]{c[4], c[5], c[6], c[7]});
+        assertEquals(accepts, offered, context + " accepts 与 offer 不一致");
+    }
+}
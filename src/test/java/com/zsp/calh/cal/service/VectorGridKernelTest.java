@@ -0,0 +1,122 @@
+package com.zsp.calh.cal.service;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Vector API 内核的输出必须与标量内核逐位相同。
+ * 只有 com.zsp.calh.cal.vector 模块和 jdk.incubator.vector 可用时才运行
+ * （mvn -Pvector 编译后加入模块路径，并加上 --add-modules jdk.incubator.vector,com.zsp.calh.cal.vector），
+ * 否则跳过
+ */
+class VectorGridKernelTest {
+    private static final int[] TARGET_AXES = {0, 3, 4, 5, 6};
+
+    private static final GridKernel vector = loadVectorKernel();
+    private final GridKernel scalar = new ScalarGridKernel();
+
+    // 与 GridKernel.create() 相同的反射加载，不可用时返回 null
+    private static GridKernel loadVectorKernel() {
+        try {
+            return (GridKernel) Class.forName(GridKernel.VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    @Test
+    void evaluateGMatchesScalar() {
+        assumeTrue(vector != null, "Vector API 内核不可用");
+        Random random = new Random(41);
+        for (int[] resolution : new int[][]{
+                {CalculationRequest.DEFAULT_F_STEPS_PER_UNIT, CalculationRequest.DEFAULT_G_STEPS_PER_UNIT}, {100, 10}}) {
+            double[] allG = gridRequest(resolution[0], resolution[1]).getGValueArray();
+            for (int trial = 0; trial < 200; trial++) {
+                // 随机长度的 G 表，覆盖不是向量长度整数倍的尾部
+                int gCount = 1 + random.nextInt(Math.min(allG.length, 67));
+                int from = random.nextInt(allG.length - gCount + 1);
+                double[] gValues = Arrays.copyOfRange(allG, from, from + gCount);
+                double[] groundTemps = temps(random);
+                double[] carTemps = temps(random);
+                double C = temp(random);
+                double D = nonlinear(random);
+                double E = temp(random);
+
+                double[] expectedOffsets = new double[ProbeChannel.AXLE_COUNT * gCount];
+                double[] expectedStdDevs = new double[gCount];
+                scalar.evaluateG(groundTemps, carTemps, C, D, E, gValues, expectedOffsets, expectedStdDevs);
+                double[] actualOffsets = new double[ProbeChannel.AXLE_COUNT * gCount];
+                double[] actualStdDevs = new double[gCount];
+                vector.evaluateG(groundTemps, carTemps, C, D, E, gValues, actualOffsets, actualStdDevs);
+
+                String context = "第" + trial + "组 G" + gCount + "个";
+                assertSameValues(expectedOffsets, actualOffsets, context + " 偏移");
+                assertSameValues(expectedStdDevs, actualStdDevs, context + " 标准差");
+            }
+        }
+    }
+
+    @Test
+    void sweepFMatchesScalar() {
+        assumeTrue(vector != null, "Vector API 内核不可用");
+        Random random = new Random(43);
+        for (int fStepsPerUnit : new int[]{CalculationRequest.DEFAULT_F_STEPS_PER_UNIT, 100}) {
+            double[] fValues = gridRequest(fStepsPerUnit, CalculationRequest.DEFAULT_G_STEPS_PER_UNIT).getFValues();
+            for (int trial = 0; trial < 200; trial++) {
+                int count = 1 + random.nextInt(Math.min(fValues.length, 133));
+                int from = random.nextInt(fValues.length - count + 1);
+                double[] axleOffsets = new double[ProbeChannel.AXLE_COUNT];
+                for (int k = 0; k < axleOffsets.length; k++) axleOffsets[k] = (random.nextDouble() - 0.5) * 80;
+                double[] carTemps = temps(random);
+                double stdDev = random.nextDouble() * 5;
+                int targetAxis = TARGET_AXES[trial % TARGET_AXES.length];
+
+                double[] expectedDiffs = new double[ProbeChannel.AXLE_COUNT * count];
+                double[] expectedKeys = new double[count];
+                scalar.sweepF(axleOffsets, carTemps, fValues, from, count, targetAxis, stdDev, expectedDiffs, expectedKeys);
+                double[] actualDiffs = new double[ProbeChannel.AXLE_COUNT * count];
+                double[] actualKeys = new double[count];
+                vector.sweepF(axleOffsets, carTemps, fValues, from, count, targetAxis, stdDev, actualDiffs, actualKeys);
+
+                String context = "第" + trial + "组 F从" + from + "起" + count + "个 轴" + targetAxis;
+                assertSameValues(expectedDiffs, actualDiffs, context + " 差值");
+                assertSameValues(expectedKeys, actualKeys, context + " 第二关键字");
+            }
+        }
+    }
+
+    private static CalculationRequest gridRequest(int fStepsPerUnit, int gStepsPerUnit) {
+        return new CalculationRequest(ProbeChannel.PROBE1_LEFT, 35.0, null, 0, SolverMode.GRID, fStepsPerUnit, gStepsPerUnit);
+    }
+
+    private static double[] temps(Random random) {
+        double[] temps = new double[ProbeChannel.AXLE_COUNT];
+        for (int k = 0; k < temps.length; k++) temps[k] = temp(random);
+        return temps;
+    }
+
+    // 与导入数据相同，保留一位小数
+    private static double temp(Random random) {
+        return Math.round((20 + random.nextDouble() * 30) * 10) / 10.0;
+    }
+
+    // 调用方保证 1 + D/100 != 0
+    private static double nonlinear(Random random) {
+        double D = Math.round((random.nextDouble() - 0.5) * 400) / 10.0;
+        return D == -100.0 ? -99.9 : D;
+    }
+
+    // 按位比较（Double.equals），0.0 与 -0.0 也要区分
+    private static void assertSameValues(double[] expected, double[] actual, String context) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]),
+                    context + " 第" + i + "个: " + expected[i] + " != " + actual[i]);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.zsp.calh.cal.service.vector;
+
+import com.zsp.calh.cal.model.ProbeChannel;
+import com.zsp.calh.cal.service.GridKernel;
+import com.zsp.calh.cal.service.TopKSelector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 jdk.incubator.vector 的内核：一条向量同时处理多个 G（evaluateG）或多个 F（sweepF）。
+ * 只使用逐通道的加减乘除和开方，运算顺序与标量实现相同，结果逐位一致。
+ * 4 个轴展开为局部变量，主循环不使用掩码，向量对象才能被编译器完全消除；末尾不足一条向量的部分逐个计算。
+ * 本包属于单独编译的模块 com.zsp.calh.cal.vector（见 src/vector/java/module-info.java），
+ * 只通过 GridKernel.create() 反射加载，模块未加载时不影响程序其他部分
+ */
+public class VectorGridKernel implements GridKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    static {
+        if (ProbeChannel.AXLE_COUNT != 4) {
+            throw new ExceptionInInitializerError("VectorGridKernel 按 4 个轴展开，轴数为 " + ProbeChannel.AXLE_COUNT);
+        }
+    }
+
+    @Override
+    public void evaluateG(double[] groundTemps, double[] carTemps, double C, double D, double E, double[] gValues,
+                          double[] offsetsOut, double[] stdDevsOut) {
+        int gCount = gValues.length;
+        double dPct = D / 100.0;
+        double onePlusD = 1 + dPct;
+        double a0 = groundTemps[0] - C, a1 = groundTemps[1] - C, a2 = groundTemps[2] - C, a3 = groundTemps[3] - C;
+        double z0 = carTemps[0], z1 = carTemps[1], z2 = carTemps[2], z3 = carTemps[3];
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+
+        int bound = SPECIES.loopBound(gCount);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector gPct = DoubleVector.fromArray(SPECIES, gValues, i).div(100.0);
+            DoubleVector onePlusG = gPct.add(1.0);
+            DoubleVector term1 = onePlusG.div(onePlusD);
+            DoubleVector plateTerm = onePlusG.mul(dPct).div(onePlusD).sub(gPct).mul(E);
+
+            DoubleVector shape0 = term1.mul(a0);
+            DoubleVector shape1 = term1.mul(a1);
+            DoubleVector shape2 = term1.mul(a2);
+            DoubleVector shape3 = term1.mul(a3);
+            shape0.add(plateTerm).intoArray(offsetsOut, i);
+            shape1.add(plateTerm).intoArray(offsetsOut, gCount + i);
+            shape2.add(plateTerm).intoArray(offsetsOut, 2 * gCount + i);
+            shape3.add(plateTerm).intoArray(offsetsOut, 3 * gCount + i);
+
+            // 单次遍历：4 个轴的差值留在寄存器中，依次求和、求均值、求平方和，不写回中间数组。
+            // 标准差与标量实现一样按 E=0 计算
+            DoubleVector d0 = shape0.sub(z0);
+            DoubleVector d1 = shape1.sub(z1);
+            DoubleVector d2 = shape2.sub(z2);
+            DoubleVector d3 = shape3.sub(z3);
+            DoubleVector mean = zero.add(d0).add(d1).add(d2).add(d3).div(4);
+            DoubleVector dev0 = d0.sub(mean);
+            DoubleVector dev1 = d1.sub(mean);
+            DoubleVector dev2 = d2.sub(mean);
+            DoubleVector dev3 = d3.sub(mean);
+            zero.add(dev0.mul(dev0)).add(dev1.mul(dev1)).add(dev2.mul(dev2)).add(dev3.mul(dev3))
+                    .div(4).lanewise(VectorOperators.SQRT).intoArray(stdDevsOut, i);
+        }
+
+        // 不足一条向量的末尾逐个计算，同样是单次遍历
+        for (; i < gCount; i++) {
+            double gPct = gValues[i] / 100.0;
+            double term1 = (1 + gPct) / onePlusD;
+            double plateTerm = ((1 + gPct) * dPct / onePlusD - gPct) * E;
+            double shape0 = term1 * a0;
+            double shape1 = term1 * a1;
+            double shape2 = term1 * a2;
+            double shape3 = term1 * a3;
+            offsetsOut[i] = shape0 + plateTerm;
+            offsetsOut[gCount + i] = shape1 + plateTerm;
+            offsetsOut[2 * gCount + i] = shape2 + plateTerm;
+            offsetsOut[3 * gCount + i] = shape3 + plateTerm;
+
+            double d0 = shape0 - z0;
+            double d1 = shape1 - z1;
+            double d2 = shape2 - z2;
+            double d3 = shape3 - z3;
+            double mean = (0.0 + d0 + d1 + d2 + d3) / 4;
+            double sumSq = 0.0 + (d0 - mean) * (d0 - mean) + (d1 - mean) * (d1 - mean)
+                    + (d2 - mean) * (d2 - mean) + (d3 - mean) * (d3 - mean);
+            stdDevsOut[i] = Math.sqrt(sumSq / 4);
+        }
+    }
+
+    @Override
+    public void sweepF(double[] axleOffsets, double[] carTemps, double[] fValues, int from, int count,
+                       int targetAxis, double stdDev, double[] diffsOut, double[] keysOut) {
+        double offset0 = axleOffsets[0], offset1 = axleOffsets[1], offset2 = axleOffsets[2], offset3 = axleOffsets[3];
+        double z0 = carTemps[0], z1 = carTemps[1], z2 = carTemps[2], z3 = carTemps[3];
+        int bound = SPECIES.loopBound(count);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            DoubleVector f = DoubleVector.fromArray(SPECIES, fValues, from + j);
+            DoubleVector d0 = f.add(offset0).sub(z0);
+            DoubleVector d1 = f.add(offset1).sub(z1);
+            DoubleVector d2 = f.add(offset2).sub(z2);
+            DoubleVector d3 = f.add(offset3).sub(z3);
+            d0.intoArray(diffsOut, j);
+            d1.intoArray(diffsOut, count + j);
+            d2.intoArray(diffsOut, 2 * count + j);
+            d3.intoArray(diffsOut, 3 * count + j);
+
+            // 第二关键字，与 TopKSelector.secondaryKey 相同
+            DoubleVector key;
+            switch (targetAxis) {
+                case 3: key = d0.abs(); break;
+                case 4: key = d1.abs(); break;
+                case 5: key = d2.abs(); break;
+                case 6: key = d3.abs(); break;
+                default: key = d0.add(d1).add(d2).add(d3).div(4.0).abs().add(stdDev); break;
+            }
+            key.intoArray(keysOut, j);
+        }
+
+        // 不足一条向量的末尾逐个计算
+        for (; j < count; j++) {
+            double F = fValues[from + j];
+            for (int k = 0; k < ProbeChannel.AXLE_COUNT; k++) {
+                diffsOut[k * count + j] = (axleOffsets[k] + F) - carTemps[k];
+            }
+            keysOut[j] = TopKSelector.secondaryKey(targetAxis, stdDev, diffsOut[j], diffsOut[count + j],
+                    diffsOut[2 * count + j], diffsOut[3 * count + j]);
+        }
+    }
+}
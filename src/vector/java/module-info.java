@@ -0,0 +1,7 @@
+// 可选的 Vector API 内核，与主模块分开编译（mvn -Pvector），主模块通过 GridKernel.create() 反射加载
+module com.zsp.calh.cal.vector {
+    requires com.zsp.calh.cal;
+    requires jdk.incubator.vector;
+
+    exports com.zsp.calh.cal.service.vector;
+}